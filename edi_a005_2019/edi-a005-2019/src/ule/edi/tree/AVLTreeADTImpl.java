@@ -0,0 +1,296 @@
+package ule.edi.tree;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Árbol binario de búsqueda auto-equilibrado (AVL).
+ *
+ * Se comporta como {@link BinarySearchTreeADTImpl} (mismos toString(),
+ * render(), etiquetas e iteratorInorden()), pero tras cada inserción o
+ * borrado se restablece la condición AVL: en cada nodo, las alturas de
+ * sus dos sub-árboles difieren como mucho en 1. Así la altura del árbol
+ * es O(log n) aunque los elementos lleguen ordenados.
+ *
+ * Por ejemplo, al insertar 1, 2, 3, 4, 5, 6, 7 en ese orden se obtiene:
+ *
+ * 		{4, {2, {1, ∅, ∅}, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}
+ *
+ * Como la raíz de un árbol es el propio objeto, las rotaciones no
+ * cambian los nodos de sitio sino que intercambian su contenido (y sus
+ * etiquetas, que acompañan al elemento).
+ *
+ * @param <T>
+ *            tipo de la información en cada nodo, comparable.
+ */
+public class AVLTreeADTImpl<T extends Comparable<? super T>> extends
+		BinarySearchTreeADTImpl<T> {
+
+	//	Árbol AVL vacío compartido por todas las hojas
+	//
+	@SuppressWarnings("rawtypes")
+	private static final AVLTreeADTImpl EMPTY_AVL = new AVLTreeADTImpl();
+
+	static {
+		sealEmpty(EMPTY_AVL);
+	}
+
+	/**
+	 * Árbol AVL vacío
+	 */
+	public AVLTreeADTImpl() {
+
+		super();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected BinarySearchTreeADTImpl<T> emptyBST() {
+		return EMPTY_AVL;
+	}
+
+	@Override
+	protected BinarySearchTreeADTImpl<T> newBST() {
+		return new AVLTreeADTImpl<T>();
+	}
+
+	private AVLTreeADTImpl<T> getLeftAVL() {
+		return (AVLTreeADTImpl<T>) leftSubtree;
+	}
+
+	private AVLTreeADTImpl<T> getRightAVL() {
+		return (AVLTreeADTImpl<T>) rightSubtree;
+	}
+
+	/**
+	 * Inserta un nuevo elemento y re-equilibra el camino recorrido.
+	 *
+	 * No se permiten elementos null. Si el elemento ya existe en el árbol NO lo inserta.
+	 *
+	 * @param element
+	 *            valor a insertar.
+	 * @throws NullPointerException si element es null
+	 */
+	@Override
+	public void insert(T element) {
+
+		if(element == null) {
+
+			throw new NullPointerException("no se permiten elementos null");
+		}
+
+		pathsChanged();
+
+		if(isEmpty()) {
+
+			becomeLeaf(element);
+
+		}else {
+
+			insertAt(element);
+		}
+	}
+
+	/**
+	 * Inserta en este sub-árbol, que puede ser el vacío compartido.
+	 *
+	 * @return el sub-árbol que debe ocupar este lugar en su padre.
+	 */
+	private AVLTreeADTImpl<T> insertAt(T element) {
+
+		if(isEmpty()) {
+
+			AVLTreeADTImpl<T> leaf = (AVLTreeADTImpl<T>) newBST();
+			leaf.becomeLeaf(element);
+
+			return leaf;
+		}
+
+		int cmp = this.content.compareTo(element);
+
+		if(cmp < 0) { //bajamos por la derecha
+
+			setRightBST(getRightAVL().insertAt(element));
+
+		}else if(cmp > 0) { //bajamos por la izquierda
+
+			setLeftBST(getLeftAVL().insertAt(element));
+
+		}else { //ya está, el árbol no cambia
+
+			return this;
+		}
+
+		rebalance();
+		return this;
+	}
+
+	/**
+	 * Elimina un elemento del árbol y re-equilibra el camino recorrido.
+	 *
+	 * Si el elemento tiene dos hijos se sustituye por el mayor de sus menores,
+	 * igual que en {@link BinarySearchTreeADTImpl#withdraw(Comparable)}.
+	 *
+	 * @throws NoSuchElementException si el elemento a eliminar no está en el árbol
+	 */
+	@Override
+	public void withdraw(T element) {
+
+		if(withdrawAt(element).isEmpty()) { //era la única hoja, la raíz queda vacía
+
+			becomeEmpty();
+		}
+
+		pathsChanged();
+	}
+
+	/**
+	 * Elimina de este sub-árbol.
+	 *
+	 * @return el sub-árbol que debe ocupar este lugar en su padre.
+	 */
+	private AVLTreeADTImpl<T> withdrawAt(T element) {
+
+		if(isEmpty()) {
+
+			throw new NoSuchElementException();
+		}
+
+		int cmp = this.content.compareTo(element);
+
+		if(cmp < 0) {
+
+			setRightBST(getRightAVL().withdrawAt(element));
+
+		}else if(cmp > 0) {
+
+			setLeftBST(getLeftAVL().withdrawAt(element));
+
+		}else if(isLeaf()) {
+
+			return (AVLTreeADTImpl<T>) emptyBST();
+
+		}else if(getLeftAVL().isEmpty()) { //sólo hijo derecho
+
+			AVLTreeADTImpl<T> child = getRightAVL();
+
+			setContent(child.content);
+			setLeftBST(child.getLeftBST());
+			setRightBST(child.getRightBST());
+
+		}else if(getRightAVL().isEmpty()) { //sólo hijo izquierdo
+
+			AVLTreeADTImpl<T> child = getLeftAVL();
+
+			setContent(child.content);
+			setRightBST(child.getRightBST());
+			setLeftBST(child.getLeftBST());
+
+		}else { //dos hijos, el mayor de los menores ocupa su lugar
+
+			BinarySearchTreeADTImpl<T> aux = getLeftBST();
+
+			while(aux.getRightBST().isEmpty() == false) {
+
+				aux = aux.getRightBST();
+			}
+
+			this.content = aux.content;
+			setLeftBST(getLeftAVL().withdrawAt(aux.content));
+		}
+
+		rebalance();
+		return this;
+	}
+
+	/**
+	 * Diferencia de alturas entre el sub-árbol izquierdo y el derecho.
+	 */
+	private int balanceFactor() {
+		return getLeftBST().subtreeHeight - getRightBST().subtreeHeight;
+	}
+
+	/**
+	 * Recalcula la altura de este nodo y, si está desequilibrado, aplica
+	 * la rotación simple o doble que corresponda.
+	 */
+	private void rebalance() {
+
+		subtreeChanged();
+
+		int bf = balanceFactor();
+
+		if(bf > 1) { //cargado a la izquierda
+
+			if(getLeftAVL().balanceFactor() < 0) {
+
+				getLeftAVL().rotateLeft();
+			}
+			rotateRight();
+
+		}else if(bf < -1) { //cargado a la derecha
+
+			if(getRightAVL().balanceFactor() > 0) {
+
+				getRightAVL().rotateRight();
+			}
+			rotateLeft();
+		}
+	}
+
+	/**
+	 * Intercambia contenido y etiquetas con otro nodo.
+	 */
+	private void swapContent(AVLTreeADTImpl<T> other) {
+
+		T c = this.content;
+		this.content = other.content;
+		other.content = c;
+
+		Map<String, Object> t = this.tags;
+		this.tags = other.tags;
+		other.tags = t;
+	}
+
+	/**
+	 * Rotación a la derecha: el hijo izquierdo pasa a ser la raíz.
+	 *
+	 *        a             b
+	 *       / \           / \
+	 *      b   C   =>    A   a
+	 *     / \               / \
+	 *    A   B             B   C
+	 */
+	private void rotateRight() {
+
+		AVLTreeADTImpl<T> l = getLeftAVL();
+
+		swapContent(l);
+
+		setLeftBST(l.getLeftBST());
+		l.setLeftBST(l.getRightBST());
+		l.setRightBST(getRightBST());
+		setRightBST(l);
+
+		l.subtreeChanged();
+		subtreeChanged();
+	}
+
+	/**
+	 * Rotación a la izquierda: el hijo derecho pasa a ser la raíz.
+	 */
+	private void rotateLeft() {
+
+		AVLTreeADTImpl<T> r = getRightAVL();
+
+		swapContent(r);
+
+		setRightBST(r.getRightBST());
+		r.setRightBST(r.getLeftBST());
+		r.setLeftBST(getLeftBST());
+		setLeftBST(r);
+
+		r.subtreeChanged();
+		subtreeChanged();
+	}
+}
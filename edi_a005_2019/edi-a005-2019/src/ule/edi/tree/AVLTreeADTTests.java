@@ -0,0 +1,162 @@
+package ule.edi.tree;
+
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class AVLTreeADTTests {
+
+	private AVLTreeADTImpl<Integer> TE = null;
+
+	/*
+	* 4
+	* |  2
+	* |  |  1
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  3
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  6
+	* |  |  5
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  7
+	* |  |  |  ∅
+	* |  |  |  ∅
+	*/
+	private AVLTreeADTImpl<Integer> T7 = null;
+
+	@Before
+	public void setupAVLs() {
+
+		TE = new AVLTreeADTImpl<Integer>();
+
+		T7 = new AVLTreeADTImpl<Integer>();
+		T7.insert(1, 2, 3, 4, 5, 6, 7);
+		Assert.assertEquals("{4, {2, {1, ∅, ∅}, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", T7.toString());
+	}
+
+	@Test
+	public void testInsertSortedStaysBalanced() {
+
+		for (int i = 0; i < 1023; i++) {
+
+			TE.insert(i);
+		}
+		Assert.assertEquals(10, TE.height());
+	}
+
+	@Test
+	public void testInsertDoubleRotations() {
+
+		TE.insert(30, 10, 20);
+		Assert.assertEquals("{20, {10, ∅, ∅}, {30, ∅, ∅}}", TE.toString());
+
+		TE = new AVLTreeADTImpl<Integer>();
+		TE.insert(10, 30, 20);
+		Assert.assertEquals("{20, {10, ∅, ∅}, {30, ∅, ∅}}", TE.toString());
+	}
+
+	@Test
+	public void testBulkLoadKeepsAVL() {
+
+		TE.bulkLoad(5, 4, 3, 2, 1);
+		Assert.assertEquals("{3, {1, ∅, {2, ∅, ∅}}, {4, ∅, {5, ∅, ∅}}}", TE.toString());
+		Assert.assertEquals(3, TE.height());
+
+		TE.insert(6, 7);
+		Assert.assertEquals("{3, {1, ∅, {2, ∅, ∅}}, {5, {4, ∅, ∅}, {6, ∅, {7, ∅, ∅}}}}", TE.toString());
+		Assert.assertEquals(4, TE.height());
+	}
+
+	@Test
+	public void testInsertRepeated() {
+
+		T7.insert(4);
+		Assert.assertEquals("{4, {2, {1, ∅, ∅}, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", T7.toString());
+	}
+
+	@Test
+	public void testWithdrawRebalances() {
+
+		T7.withdraw(1, 3);
+		Assert.assertEquals("{4, {2, ∅, ∅}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", T7.toString());
+
+		T7.withdraw(2);
+		Assert.assertEquals("{6, {4, ∅, {5, ∅, ∅}}, {7, ∅, ∅}}", T7.toString());
+		Assert.assertEquals(3, T7.height());
+	}
+
+	@Test
+	public void testWithdraw2Child() {
+
+		T7.withdraw(4);
+		Assert.assertEquals("{3, {2, {1, ∅, ∅}, ∅}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", T7.toString());
+	}
+
+	@Test
+	public void testWithdrawAll() {
+
+		for (int i = 1; i <= 7; i++) {
+
+			T7.withdraw(i);
+		}
+		Assert.assertEquals("∅", T7.toString());
+		Assert.assertEquals(0, T7.height());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testWithdrawNotFound() {
+
+		T7.withdraw(8);
+	}
+
+	@Test
+	public void testSizeAndSelectAfterRotations() {
+
+		for (int i = 0; i < 100; i++) {
+
+			TE.insert(i);
+		}
+		TE.withdraw(0, 50, 99);
+		Assert.assertEquals(97, TE.size());
+		Assert.assertEquals(Integer.valueOf(51), TE.select(49));
+		Assert.assertEquals(49, TE.rank(51));
+		Assert.assertEquals(10, TE.countRange(45, 55));
+	}
+
+	@Test
+	public void testTagsFollowRotations() {
+
+		TE.insert(1);
+		TE.setTag("key", 1);
+		TE.insert(2, 3);
+		Assert.assertEquals("{2, {1 [(key, 1)], ∅, ∅}, {3, ∅, ∅}}", TE.toString());
+	}
+
+	@Test
+	public void testRender() {
+
+		TE.insert(1, 2, 3);
+		Assert.assertEquals("2\n|  1\n|  |  ∅\n|  |  ∅\n|  3\n|  |  ∅\n|  |  ∅\n", TE.render());
+	}
+
+	@Test
+	public void testInorderIterator() {
+
+		Iterator<Integer> i = T7.iteratorInorden();
+
+		for (int n = 1; n <= 7; n++) {
+
+			Assert.assertTrue(i.hasNext());
+			Assert.assertEquals(n, i.next().intValue());
+		}
+		Assert.assertFalse(i.hasNext());
+	}
+}
@@ -2,6 +2,9 @@ package ule.edi.tree;
 
 import java.util.List;
 
+import ule.edi.tree.TreeTraversal.Action;
+import ule.edi.tree.TreeTraversal.Order;
+
 /**
  * Árbol binario.
  * 
@@ -23,6 +26,19 @@ public abstract class AbstractBinaryTreeADT<T> extends AbstractTreeADT<T> {
 		return 2;
 	}
 
+	/**
+	 * Con sólo dos hijos, se comprueban directamente sin recorrerlos.
+	 */
+	@Override
+	public int getDegree() {
+		
+		if (isEmpty()) {
+			return 0;
+		}
+		
+		return (leftSubtree.isEmpty() ? 0 : 1) + (rightSubtree.isEmpty() ? 0 : 1);
+	}
+
 	@Override
 	public TreeADT<T> getSubtree(int n) {
 		//	El sub-árbol izquierdo es el "0"
@@ -45,26 +61,11 @@ public abstract class AbstractBinaryTreeADT<T> extends AbstractTreeADT<T> {
 	 */
 	public boolean findInBinaryTree(T element, List<T> elementsChecked) {
 		
-		if (! isEmpty()) {
-			//	Comprueba el valor en la raíz del sub-árbol actual
-			elementsChecked.add(getContent());
-			
-			if (getContent().equals(element)) {
-				//	El sub-árbol actual contiene el elemento
-				return true;
-			} else {
-				//	Hay que seguir buscando en sub-árboles
-				if (leftSubtree.findInBinaryTree(element, elementsChecked)) {
-					return true;
-				} else {
-					//	En la rama izquierda no está, quizá en la derecha
-					return rightSubtree.findInBinaryTree(element, elementsChecked);
-				}
-			}
-		} else {
-			//	No está en un árbol vacío
-			return false;
-		}
+		//	Preorden: se comprueba la raíz de cada sub-árbol antes que sus hijos
+		return TreeTraversal.traverse(this, Order.PREORDER, (node, depth, path) -> {
+			elementsChecked.add(node.getContent());
+			return node.getContent().equals(element) ? Action.STOP : Action.CONTINUE;
+		}) != null;
 	}
 	
 }
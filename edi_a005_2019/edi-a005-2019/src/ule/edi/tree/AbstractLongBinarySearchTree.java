@@ -0,0 +1,116 @@
+package ule.edi.tree;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Operaciones de los árboles de búsqueda de claves long, sea cual sea el
+ * sitio donde guardan sus nodos.
+ *
+ * @see LongBinarySearchTree
+ * @see OffHeapLongBinarySearchTree
+ */
+public abstract class AbstractLongBinarySearchTree extends AbstractPrimitiveBinarySearchTree {
+
+	/**
+	 * Indica si el elemento está en el árbol.
+	 */
+	public boolean contains(long element) {
+		return findNode(element) != NIL;
+	}
+
+	/**
+	 * Inserta un nuevo elemento. Si ya existe en el árbol NO lo inserta.
+	 */
+	public void insert(long element) {
+		insertKey(element);
+	}
+
+	/**
+	 * Inserta todos los elementos del array, en ese orden.
+	 */
+	public void insert(long ... elements) {
+
+		for (long e : elements) {
+
+			insertKey(e);
+		}
+	}
+
+	/**
+	 * Elimina un elemento del árbol.
+	 *
+	 * @throws NoSuchElementException si el elemento no está en el árbol
+	 */
+	public void withdraw(long element) {
+
+		if(withdrawKey(element) == false) {
+
+			throw new NoSuchElementException();
+		}
+	}
+
+	/**
+	 * Menor elemento del árbol.
+	 *
+	 * @throws NoSuchElementException si el árbol está vacío
+	 */
+	public long first() {
+		return keyAt(extremeNode(false));
+	}
+
+	/**
+	 * Mayor elemento del árbol.
+	 *
+	 * @throws NoSuchElementException si el árbol está vacío
+	 */
+	public long last() {
+		return keyAt(extremeNode(true));
+	}
+
+	/**
+	 * Elementos del árbol en orden ascendente.
+	 */
+	public long[] toArray() {
+		return keysInOrder();
+	}
+
+	/**
+	 * Carga de golpe todos los elementos del array (junto con los que ya
+	 * hubiera en el árbol), dejándolo perfectamente equilibrado en tiempo
+	 * lineal. Si el array ya viene ordenado no se ordena.
+	 *
+	 * @param elements elementos a insertar.
+	 */
+	public void bulkLoad(long ... elements) {
+		bulkLoadKeys(elements, false);
+	}
+
+	/**
+	 * Iterador en inorden (de menor a mayor), sin crear objetos por elemento.
+	 */
+	public PrimitiveIterator.OfLong iteratorInorden() {
+		return longIterator(false, false, 0, false, 0);
+	}
+
+	/**
+	 * Iterador ascendente sobre los elementos del intervalo [lo, hi).
+	 */
+	public PrimitiveIterator.OfLong iteratorRange(long lo, long hi) {
+		return longIterator(false, true, lo, true, hi);
+	}
+
+	/**
+	 * Iterador en inorden inverso (de mayor a menor).
+	 */
+	public PrimitiveIterator.OfLong descendingIterator() {
+		return longIterator(true, false, 0, false, 0);
+	}
+
+	/**
+	 * Iterador descendente sobre los elementos del intervalo [lo, hi).
+	 */
+	public PrimitiveIterator.OfLong descendingIterator(long lo, long hi) {
+		return longIterator(true, true, lo, true, hi);
+	}
+}
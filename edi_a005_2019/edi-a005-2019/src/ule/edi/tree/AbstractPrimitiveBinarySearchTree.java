@@ -0,0 +1,657 @@
+package ule.edi.tree;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Motor común de los árboles de búsqueda con claves primitivas.
+ *
+ * Los nodos no son objetos: se identifican por un índice (int) y cada
+ * subclase decide dónde guarda su clave, sus hijos y su altura (arrays
+ * paralelos, memoria fuera del heap, ...). Las claves se manejan aquí como
+ * long; un árbol de int simplemente las amplía al leerlas.
+ *
+ * El árbol se mantiene equilibrado como un AVL. Los huecos de los nodos
+ * eliminados se encadenan en una lista libre (usando el enlace izquierdo)
+ * y se reutilizan en las siguientes inserciones.
+ */
+abstract class AbstractPrimitiveBinarySearchTree {
+
+	/**
+	 * Índice que representa el árbol vacío (∅).
+	 */
+	protected static final int NIL = -1;
+
+	protected int root = NIL;
+
+	protected int size;
+
+	//	Lista de huecos libres y número de huecos usados alguna vez
+	private int freeHead = NIL;
+	private int slots;
+
+	//	Si la última inserción o eliminación cambió el árbol
+	private boolean changed;
+
+	protected abstract long keyAt(int n);
+
+	protected abstract void setKeyAt(int n, long key);
+
+	protected abstract int leftOf(int n);
+
+	protected abstract void setLeftOf(int n, int child);
+
+	protected abstract int rightOf(int n);
+
+	protected abstract void setRightOf(int n, int child);
+
+	protected abstract int heightOf(int n);
+
+	protected abstract void setHeightOf(int n, int height);
+
+	/**
+	 * Asegura que hay sitio para los nodos [0, nodes).
+	 */
+	protected abstract void ensureCapacity(int nodes);
+
+	/**
+	 * Número de elementos en el árbol.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return root == NIL;
+	}
+
+	/**
+	 * Altura del árbol (0 si está vacío).
+	 */
+	public int height() {
+		return height(root);
+	}
+
+	private int height(int n) {
+		return n == NIL ? 0 : heightOf(n);
+	}
+
+	/**
+	 * Vacía el árbol, conservando el espacio ya reservado.
+	 */
+	public void clear() {
+
+		root = NIL;
+		size = 0;
+		freeHead = NIL;
+		slots = 0;
+	}
+
+	/**
+	 * Primer hueco de la lista libre (NIL si no hay), para que las
+	 * subclases que guardan el árbol en disco puedan persistirlo.
+	 */
+	protected final int freeHead() {
+		return freeHead;
+	}
+
+	/**
+	 * Número de huecos usados alguna vez.
+	 */
+	protected final int slots() {
+		return slots;
+	}
+
+	/**
+	 * Restaura el estado guardado con {@link #freeHead()} y {@link #slots()}
+	 * junto con la raíz y el tamaño.
+	 */
+	protected final void restore(int root, int size, int freeHead, int slots) {
+
+		this.root = root;
+		this.size = size;
+		this.freeHead = freeHead;
+		this.slots = slots;
+	}
+
+	/**
+	 * Nodo que contiene la clave, o NIL si no está.
+	 */
+	protected final int findNode(long key) {
+
+		int n = root;
+
+		while(n != NIL) {
+
+			long k = keyAt(n);
+
+			if(key == k) {
+
+				return n;
+			}
+
+			n = key < k ? leftOf(n) : rightOf(n);
+		}
+
+		return NIL;
+	}
+
+	/**
+	 * Nodo con la clave menor (mayor si last es <tt>true</tt>).
+	 *
+	 * @throws NoSuchElementException si el árbol está vacío
+	 */
+	protected final int extremeNode(boolean last) {
+
+		if(root == NIL) {
+
+			throw new NoSuchElementException();
+		}
+
+		int n = root;
+		int next = last ? rightOf(n) : leftOf(n);
+
+		while(next != NIL) {
+
+			n = next;
+			next = last ? rightOf(n) : leftOf(n);
+		}
+
+		return n;
+	}
+
+	/**
+	 * Inserta la clave si no estaba.
+	 *
+	 * @return <tt>true</tt> si se insertó
+	 */
+	protected final boolean insertKey(long key) {
+
+		changed = false;
+		root = insertAt(root, key);
+
+		if(changed == true) {
+
+			size++;
+		}
+
+		return changed;
+	}
+
+	private int insertAt(int n, long key) {
+
+		if(n == NIL) {
+
+			changed = true;
+			return newNode(key);
+		}
+
+		long k = keyAt(n);
+
+		if(key < k) {
+
+			setLeftOf(n, insertAt(leftOf(n), key));
+
+		}else if(key > k) {
+
+			setRightOf(n, insertAt(rightOf(n), key));
+
+		}else {
+
+			return n;
+		}
+
+		return changed ? rebalance(n) : n;
+	}
+
+	/**
+	 * Elimina la clave si estaba. Si su nodo tiene dos hijos, se sustituye
+	 * por el mayor de sus menores.
+	 *
+	 * @return <tt>true</tt> si se eliminó
+	 */
+	protected final boolean withdrawKey(long key) {
+
+		changed = false;
+		root = withdrawAt(root, key);
+
+		if(changed == true) {
+
+			size--;
+		}
+
+		return changed;
+	}
+
+	private int withdrawAt(int n, long key) {
+
+		if(n == NIL) {
+
+			return NIL;
+		}
+
+		long k = keyAt(n);
+
+		if(key < k) {
+
+			setLeftOf(n, withdrawAt(leftOf(n), key));
+
+		}else if(key > k) {
+
+			setRightOf(n, withdrawAt(rightOf(n), key));
+
+		}else if(leftOf(n) == NIL || rightOf(n) == NIL) {
+
+			int child = leftOf(n) != NIL ? leftOf(n) : rightOf(n);
+
+			changed = true;
+			freeNode(n);
+			return child;
+
+		}else {
+
+			int aux = leftOf(n);
+
+			while(rightOf(aux) != NIL) {
+
+				aux = rightOf(aux);
+			}
+
+			long pred = keyAt(aux);
+
+			setLeftOf(n, withdrawAt(leftOf(n), pred));
+			setKeyAt(n, pred);
+		}
+
+		return changed ? rebalance(n) : n;
+	}
+
+	private int newNode(long key) {
+
+		int n;
+
+		if(freeHead != NIL) {
+
+			n = freeHead;
+			freeHead = leftOf(n);
+
+		}else {
+
+			ensureCapacity(slots + 1);
+			n = slots++;
+		}
+
+		setKeyAt(n, key);
+		setLeftOf(n, NIL);
+		setRightOf(n, NIL);
+		setHeightOf(n, 1);
+
+		return n;
+	}
+
+	private void freeNode(int n) {
+
+		setLeftOf(n, freeHead);
+		freeHead = n;
+	}
+
+	private void updateHeight(int n) {
+		setHeightOf(n, 1 + Math.max(height(leftOf(n)), height(rightOf(n))));
+	}
+
+	/**
+	 * Actualiza la altura de n y lo equilibra si hace falta.
+	 *
+	 * @return nueva raíz del sub-árbol
+	 */
+	private int rebalance(int n) {
+
+		int l = leftOf(n);
+		int r = rightOf(n);
+		int bf = height(l) - height(r);
+
+		if(bf > 1) {
+
+			if(height(leftOf(l)) < height(rightOf(l))) {
+
+				setLeftOf(n, rotateLeft(l));
+			}
+
+			return rotateRight(n);
+
+		}else if(bf < -1) {
+
+			if(height(rightOf(r)) < height(leftOf(r))) {
+
+				setRightOf(n, rotateRight(r));
+			}
+
+			return rotateLeft(n);
+		}
+
+		updateHeight(n);
+		return n;
+	}
+
+	private int rotateRight(int n) {
+
+		int l = leftOf(n);
+
+		setLeftOf(n, rightOf(l));
+		setRightOf(l, n);
+		updateHeight(n);
+		updateHeight(l);
+
+		return l;
+	}
+
+	private int rotateLeft(int n) {
+
+		int r = rightOf(n);
+
+		setRightOf(n, leftOf(r));
+		setLeftOf(r, n);
+		updateHeight(n);
+		updateHeight(r);
+
+		return r;
+	}
+
+	/**
+	 * Sustituye el contenido del árbol por las claves dadas, que deben
+	 * estar ordenadas y sin repetidos, dejándolo perfectamente equilibrado.
+	 *
+	 * El nodo i guarda la i-ésima clave, así que un recorrido en inorden
+	 * visita la memoria en orden.
+	 *
+	 * @param count número de claves.
+	 * @param keys clave i-ésima.
+	 */
+	protected final void loadSorted(int count, IntToLongFunction keys) {
+
+		clear();
+		ensureCapacity(count);
+		slots = count;
+		size = count;
+		root = buildBalanced(keys, 0, count - 1);
+	}
+
+	private int buildBalanced(IntToLongFunction keys, int lo, int hi) {
+
+		if(lo > hi) {
+
+			return NIL;
+		}
+
+		int mid = (lo + hi) >>> 1;
+
+		setKeyAt(mid, keys.applyAsLong(mid));
+		setLeftOf(mid, buildBalanced(keys, lo, mid - 1));
+		setRightOf(mid, buildBalanced(keys, mid + 1, hi));
+		updateHeight(mid);
+
+		return mid;
+	}
+
+	/**
+	 * Claves del árbol en orden ascendente.
+	 */
+	protected final long[] keysInOrder() {
+
+		long[] rx = new long[size];
+		Cursor c = new Cursor(false, false, 0, false, 0);
+
+		for (int i = 0; i < rx.length; i++) {
+
+			rx[i] = keyAt(c.nextNode());
+		}
+
+		return rx;
+	}
+
+	/**
+	 * Carga de golpe todas las claves (junto con las que ya hubiera en el
+	 * árbol), dejándolo perfectamente equilibrado en tiempo lineal. Si
+	 * vienen ordenadas no se ordenan.
+	 *
+	 * @param keys claves a insertar.
+	 * @param owned si keys se puede ordenar en su sitio; si no, se copia
+	 * 			antes de ordenarlo.
+	 */
+	protected final void bulkLoadKeys(long[] keys, boolean owned) {
+
+		long[] sorted = keys;
+
+		for (int i = 1; i < keys.length; i++) {
+
+			if(keys[i - 1] > keys[i]) {
+
+				sorted = owned ? keys : keys.clone();
+				Arrays.sort(sorted);
+				break;
+			}
+		}
+
+		//	Mezcla ordenada de las claves actuales con las nuevas, sin repetidos
+		final long[] merged = new long[size + sorted.length];
+		Cursor current = new Cursor(false, false, 0, false, 0);
+		boolean more = current.hasNext();
+		long next = more ? keyAt(current.nextNode()) : 0;
+		int n = 0;
+		int j = 0;
+
+		while(more == true || j < sorted.length) {
+
+			long k;
+
+			if(j == sorted.length || (more == true && next <= sorted[j])) {
+
+				k = next;
+				more = current.hasNext();
+				next = more ? keyAt(current.nextNode()) : 0;
+
+			}else {
+
+				k = sorted[j++];
+			}
+
+			if(n == 0 || merged[n - 1] != k) {
+
+				merged[n++] = k;
+			}
+		}
+
+		loadSorted(n, i -> merged[i]);
+	}
+
+	/**
+	 * Iterador de claves long, en el orden y con los límites de
+	 * {@link Cursor}.
+	 */
+	protected final PrimitiveIterator.OfLong longIterator(boolean descending, boolean hasLo, long lo, boolean hasHi, long hi) {
+
+		Cursor cursor = new Cursor(descending, hasLo, lo, hasHi, hi);
+
+		return new PrimitiveIterator.OfLong() {
+
+			@Override
+			public boolean hasNext() {
+				return cursor.hasNext();
+			}
+
+			@Override
+			public long nextLong() {
+				return keyAt(cursor.nextNode());
+			}
+		};
+	}
+
+	/**
+	 * Iterador de claves int, para los árboles que sólo guardan int.
+	 *
+	 * @see #longIterator(boolean, boolean, long, boolean, long)
+	 */
+	protected final PrimitiveIterator.OfInt intIterator(boolean descending, boolean hasLo, long lo, boolean hasHi, long hi) {
+
+		Cursor cursor = new Cursor(descending, hasLo, lo, hasHi, hi);
+
+		return new PrimitiveIterator.OfInt() {
+
+			@Override
+			public boolean hasNext() {
+				return cursor.hasNext();
+			}
+
+			@Override
+			public int nextInt() {
+				return (int) keyAt(cursor.nextNode());
+			}
+		};
+	}
+
+	/**
+	 * Cadena con el mismo formato que {@link AbstractTreeADT#toString()}.
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder();
+		toString(root, sb);
+
+		return sb.toString();
+	}
+
+	private void toString(int n, StringBuilder sb) {
+
+		if(n == NIL) {
+
+			sb.append(AbstractTreeADT.EMPTY_TREE_MARK);
+			return;
+		}
+
+		sb.append('{');
+		appendKey(keyAt(n), sb);
+		sb.append(", ");
+		toString(leftOf(n), sb);
+		sb.append(", ");
+		toString(rightOf(n), sb);
+		sb.append('}');
+	}
+
+	/**
+	 * Escribe una clave en toString(); por defecto como long.
+	 */
+	protected void appendKey(long key, StringBuilder sb) {
+		sb.append(key);
+	}
+
+	/**
+	 * Recorrido en inorden (o en inorden inverso) por índices de nodo,
+	 * limitado opcionalmente a [lo, hi). Es la base de los iteradores
+	 * primitivos.
+	 */
+	protected final class Cursor {
+
+		private int[] pending;
+		private int top;
+
+		private final boolean descending;
+		private final boolean hasLo;
+		private final long lo;
+		private final boolean hasHi;
+		private final long hi;
+
+		protected Cursor(boolean descending, boolean hasLo, long lo, boolean hasHi, long hi) {
+
+			this.pending = new int[Math.max(height(), 1)];
+			this.descending = descending;
+			this.hasLo = hasLo;
+			this.lo = lo;
+			this.hasHi = hasHi;
+			this.hi = hi;
+
+			//	Camino hasta el primer nodo dentro de los límites
+			int n = root;
+
+			while(n != NIL) {
+
+				long k = keyAt(n);
+
+				if(descending == false) {
+
+					if(hasLo == true && k < lo) {
+
+						n = rightOf(n);
+
+					}else {
+
+						push(n);
+						n = leftOf(n);
+					}
+
+				}else {
+
+					if(hasHi == true && k >= hi) {
+
+						n = leftOf(n);
+
+					}else {
+
+						push(n);
+						n = rightOf(n);
+					}
+				}
+			}
+		}
+
+		public boolean hasNext() {
+
+			if(top == 0) {
+
+				return false;
+			}
+
+			long k = keyAt(pending[top - 1]);
+
+			return descending ? (hasLo == false || k >= lo) : (hasHi == false || k < hi);
+		}
+
+		/**
+		 * Índice del siguiente nodo.
+		 */
+		public int nextNode() {
+
+			if(hasNext() == false) {
+
+				throw new NoSuchElementException();
+			}
+
+			int n = pending[--top];
+			int m = descending ? leftOf(n) : rightOf(n);
+
+			while(m != NIL) {
+
+				push(m);
+				m = descending ? rightOf(m) : leftOf(m);
+			}
+
+			return n;
+		}
+
+		/**
+		 * Apila un nodo; si el árbol ha crecido desde que se creó el
+		 * cursor, la pila crece con él.
+		 */
+		private void push(int n) {
+
+			if(top == pending.length) {
+
+				pending = Arrays.copyOf(pending, pending.length * 2);
+			}
+
+			pending[top++] = n;
+		}
+	}
+}
@@ -1,8 +1,12 @@
 package ule.edi.tree;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
@@ -27,15 +31,42 @@ public abstract class AbstractTreeADT<T> implements TreeADT<T> {
 	//
 	protected T content;
 	
-	protected Map<String, Object> tags = new HashMap<>();
+	//	Marca de nodo sin etiquetas: no se crea ningún mapa hasta la
+	//	primera etiqueta, que es lo habitual en casi todos los nodos
+	//
+	private static final Map<String, Object> NO_TAGS = Collections.unmodifiableMap(Collections.<String, Object>emptyMap());
+	
+	protected Map<String, Object> tags = NO_TAGS;
 	
+	/**
+	 * El mapa de etiquetas del nodo, que se puede modificar. Si el nodo no
+	 * tenía, se crea aquí (vacío y sin reservar sitio hasta la primera).
+	 */
 	@Override
 	public Map<String, Object> getTags() {
+		
+		if (tags == NO_TAGS) {
+			tags = new TagMap();
+		}
+		
 		return tags;
 	}
 	
+	/**
+	 * Las etiquetas de un nodo sin crear su mapa si no tiene, para
+	 * recorridos que sólo las leen.
+	 */
+	static Map<String, Object> peekTags(TreeADT<?> t) {
+		return t instanceof AbstractTreeADT ? ((AbstractTreeADT<?>) t).tags : t.getTags();
+	}
+	
 	@Override
 	public void setTag(String k, Object v) {
+		
+		if (tags == NO_TAGS) {
+			tags = new TagMap();
+		}
+		
 		tags.put(k, v);
 	}
 	
@@ -47,14 +78,14 @@ public abstract class AbstractTreeADT<T> implements TreeADT<T> {
 	@Override
 	public void filterTags(String ... keep) {
 		
-		if (! tags.isEmpty()) {
-			HashMap<String, Object> rx = new HashMap<>();
-			for (int i = 0; i < keep.length; i++) {
-				if (tags.containsKey(keep[i])) {
-					rx.put(keep[i], tags.get(keep[i]));
-				}
+		if (tags instanceof TagMap) {
+			((TagMap) tags).retainKeys(keep);
+			
+			if (tags.isEmpty()) {
+				tags = NO_TAGS;
 			}
-			this.tags = rx;
+		} else if (! tags.isEmpty()) {
+			tags.keySet().retainAll(Arrays.asList(keep));
 		}
 		
 		if (! isEmpty()) {
@@ -145,98 +176,187 @@ public abstract class AbstractTreeADT<T> implements TreeADT<T> {
 	 */
 	@Override
 	public String toString() {
-		if (! isEmpty()) {
-			//	Construye el resultado de forma eficiente
-			StringBuffer result = new StringBuffer();
-				
-			//	Raíz
-			result.append("{" + content.toString());
-			
-			if (! tags.isEmpty()) {
-				result.append(" [");
-				
-				List<String> sk = new LinkedList<String>(tags.keySet());
-				
-				Collections.sort(sk);
-				for (String k : sk) {
-					result.append("(" + k + ", " + tags.get(k) + "), ");
-				}
-				result.delete(result.length() - 2, result.length());
-				result.append("]");
-			}
-			
-			//	Y cada sub-árbol
-			for (int i = 0; i < getMaxDegree(); i++) {
-				result.append(", " + getSubtree(i).toString());
-			}
-			//	Cierra la "}" de este árbol
-			result.append("}");
-			
-			return result.toString();
-		} else {
-			return AbstractTreeADT.EMPTY_TREE_MARK;
+		
+		StringBuilder rx = new StringBuilder();
+		
+		try {
+			writeTo(rx);
+		} catch (IOException e) {
+			//	Un StringBuilder no falla al escribir
+			throw new UncheckedIOException(e);
 		}
+		
+		return rx.toString();
 	}
 	
+	//	Marcas en la pila de writeTo(), además de los sub-árboles
+	//
+	private static final Object CLOSE = new Object();
+	private static final Object SEPARATOR = new Object();
+	
 	/**
-	 * Implementación para mostrar un árbol con niveles.
+	 * Escribe el árbol, con el mismo formato que {@link #toString()}, sin
+	 * construir cadenas intermedias.
+	 * 
+	 * Usa una pila explícita en lugar de recursividad, así que vale para
+	 * árboles muy profundos.
 	 * 
-	 * @param t (sub-)árbol a mostrar.
-	 * @param bx buffer donde acumular el resultado.
-	 * @param depth profundidad de t en el árbol total.
+	 * @param out destino (un Writer, un StringBuilder, ...).
 	 */
-	private void render(TreeADT<T> t, StringBuffer bx, int depth) {
+	public void writeTo(Appendable out) throws IOException {
 		
-		//	Muestra el nodo raíz; tantos espacios como profundo sea
-		for (int i = 0; i < depth; i++) { bx.append("|  "); }
+		Deque<Object> pending = new ArrayDeque<Object>();
 		
-		//	Y después de los espacios, la información
-		if (! t.isEmpty()) {
-			bx.append(t.getContent());
+		pending.push(this);
+		
+		while (! pending.isEmpty()) {
 			
-			Map<String, Object> tags = t.getTags();
+			Object next = pending.pop();
 			
-			if (! tags.isEmpty()) {
-				bx.append(" [");
+			if (next == CLOSE) {
+				out.append('}');
+			} else if (next == SEPARATOR) {
+				out.append(", ");
+			} else {
+				@SuppressWarnings("unchecked")
+				TreeADT<T> t = (TreeADT<T>) next;
+				
+				if (t.isEmpty()) {
+					out.append(AbstractTreeADT.EMPTY_TREE_MARK);
+					continue;
+				}
 				
-				List<String> sk = new LinkedList<String>(tags.keySet());
+				//	Raíz
+				out.append('{').append(String.valueOf(t.getContent()));
+				appendTags(peekTags(t), Integer.MAX_VALUE, out);
 				
-				Collections.sort(sk);
-				for (String k : sk) {
-					bx.append("(" + k + ", " + tags.get(k) + "), ");
+				//	Y cada sub-árbol, apilados al revés: ", s0, s1, ...}"
+				pending.push(CLOSE);
+				for (int i = t.getMaxDegree() - 1; i >= 0; i--) {
+					pending.push(t.getSubtree(i));
+					pending.push(SEPARATOR);
 				}
-				bx.delete(bx.length() - 2, bx.length());
-				bx.append("]");
 			}
-			
-			bx.append("\n");
-			
-			//	Muestra sus sub-árboles (recursividad)
-			for (int i = 0; i < t.getMaxDegree(); i++) {
-				//	Que están a mayor profundidad que éste
-				render(t.getSubtree(i), bx, depth + 1);
-			}			
-		} else {
-			bx.append(AbstractTreeADT.EMPTY_TREE_MARK);
-			bx.append("\n");
 		}
 	}
 	
+	/**
+	 * Escribe " [(k1, v1), (k2, v2)]" con las etiquetas ordenadas por clave,
+	 * como mucho las max primeras; nada si no hay etiquetas.
+	 */
+	private static void appendTags(Map<String, Object> tags, int max, Appendable out) throws IOException {
+		
+		if (tags.isEmpty()) {
+			return;
+		}
+		
+		List<String> sk = new ArrayList<String>(tags.keySet());
+		
+		if (sk.size() > 1) {
+			Collections.sort(sk);
+		}
+		
+		out.append(" [");
+		for (int i = 0; i < sk.size(); i++) {
+			if (i > 0) {
+				out.append(", ");
+			}
+			if (i == max) {
+				out.append(RenderOptions.TRUNCATED_MARK);
+				break;
+			}
+			out.append('(').append(sk.get(i)).append(", ").append(String.valueOf(tags.get(sk.get(i)))).append(')');
+		}
+		out.append(']');
+	}
+	
 	/**
 	 * Devuelve una representación en niveles del árbol.
 	 * 
 	 * @return cada nodo se muestra según su profundidad.
 	 */
 	public String render() {
-		//	Acumula el resultado
-		StringBuffer rx = new StringBuffer();
-		//	Genera usando recursividad
-		render(this, rx, 0);
-		//	
+		
+		StringBuilder rx = new StringBuilder();
+		
+		try {
+			render(rx, RenderOptions.DEFAULT);
+		} catch (IOException e) {
+			//	Un StringBuilder no falla al escribir
+			throw new UncheckedIOException(e);
+		}
+		
 		return rx.toString();
 	}
 	
+	/**
+	 * Escribe la representación en niveles del árbol, como {@link #render()},
+	 * sin construir cadenas intermedias y con los límites dados.
+	 * 
+	 * Usa una pila explícita en lugar de recursividad, así que vale para
+	 * árboles muy profundos.
+	 * 
+	 * @param out destino (un Writer, un StringBuilder, ...).
+	 * @param options límites de profundidad, nodos y etiquetas.
+	 */
+	public void render(Appendable out, RenderOptions options) throws IOException {
+		
+		Deque<TreeADT<T>> pending = new ArrayDeque<TreeADT<T>>();
+		int[] depths = new int[16];
+		long nodes = 0;
+		
+		pending.push(this);
+		depths[0] = 0;
+		
+		while (! pending.isEmpty()) {
+			
+			TreeADT<T> t = pending.pop();
+			int depth = depths[pending.size()];
+			
+			//	Muestra el nodo raíz; tantos espacios como profundo sea
+			for (int i = 0; i < depth; i++) { out.append("|  "); }
+			
+			if (t.isEmpty()) {
+				out.append(AbstractTreeADT.EMPTY_TREE_MARK).append('\n');
+				continue;
+			}
+			
+			if (depth > options.getMaxDepth()) {
+				//	Todo el sub-árbol se resume en una línea
+				out.append(RenderOptions.TRUNCATED_MARK).append('\n');
+				continue;
+			}
+			
+			if (nodes == options.getMaxNodes()) {
+				out.append(RenderOptions.TRUNCATED_MARK).append('\n');
+				return;
+			}
+			
+			nodes++;
+			
+			//	Y después de los espacios, la información
+			out.append(String.valueOf(t.getContent()));
+			appendTags(peekTags(t), options.getMaxTags(), out);
+			out.append('\n');
+			
+			//	Sus sub-árboles, a mayor profundidad; apilados al revés
+			for (int i = t.getMaxDegree() - 1; i >= 0; i--) {
+				if (pending.size() == depths.length) {
+					depths = Arrays.copyOf(depths, depths.length * 2);
+				}
+				depths[pending.size()] = depth + 1;
+				pending.push(t.getSubtree(i));
+			}
+		}
+	}
+	
 	
+	/**
+	 * Calcula la altura recorriendo todo el árbol.
+	 * 
+	 * Las implementaciones que mantienen la altura en cada nodo (por ejemplo,
+	 * {@link BinarySearchTreeADTImpl}) la redefinen para que cueste O(1).
+	 */
 	@Override
 	public int height() {
 		//	Si es vacío, altura "0"; si no, 
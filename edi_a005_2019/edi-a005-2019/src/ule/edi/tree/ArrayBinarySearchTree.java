@@ -0,0 +1,857 @@
+package ule.edi.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Árbol binario de búsqueda guardado en arrays paralelos.
+ *
+ * En lugar de un objeto por nodo con referencias a sus hijos, cada nodo es
+ * un índice: su contenido está en keys[n], sus hijos en left[n] y right[n]
+ * (NIL si es vacío) y la altura de su sub-árbol en heights[n]. Recorrer el
+ * árbol es leer enteros de unos pocos arrays contiguos, y el recolector de
+ * basura sólo ve esos arrays (más los propios elementos), tenga el árbol
+ * los nodos que tenga.
+ *
+ * Los huecos de los nodos eliminados se encadenan en una lista libre y se
+ * reutilizan en las siguientes inserciones.
+ *
+ * Inserta y elimina igual que {@link BinarySearchTreeADTImpl} (como hoja,
+ * y sustituyendo por el mayor de sus menores), así que ambos dan árboles
+ * con la misma forma, y toString() y render() producen la misma salida.
+ * Todas las operaciones son iterativas: no se desborda la pila aunque el
+ * árbol esté muy degenerado.
+ *
+ * El propio árbol es la vista {@link TreeADT} de su raíz; getSubtree()
+ * devuelve vistas ligeras de los sub-árboles, que sólo guardan el índice.
+ *
+ * @param <T>
+ *            tipo de la información en cada nodo, comparable.
+ */
+public class ArrayBinarySearchTree<T extends Comparable<? super T>> implements TreeADT<T> {
+
+	/**
+	 * Índice que representa el árbol vacío (∅).
+	 */
+	public static final int NIL = -1;
+
+	private Object[] keys;
+	private int[] left;
+	private int[] right;
+	private int[] heights;
+
+	//	Etiquetas de cada nodo; no se crea hasta la primera etiqueta
+	private TagMap[] tags;
+
+	private int root = NIL;
+	private int size;
+
+	//	Lista de huecos libres y número de huecos usados alguna vez
+	private int freeHead = NIL;
+	private int slots;
+
+	//	Camino desde la raíz en la última inserción o eliminación
+	private int[] path = new int[16];
+
+	/**
+	 * Árbol vacío
+	 */
+	public ArrayBinarySearchTree() {
+		this(16);
+	}
+
+	/**
+	 * Árbol vacío con sitio para initialCapacity nodos sin crecer.
+	 */
+	public ArrayBinarySearchTree(int initialCapacity) {
+
+		keys = new Object[initialCapacity];
+		left = new int[initialCapacity];
+		right = new int[initialCapacity];
+		heights = new int[initialCapacity];
+	}
+
+	private void ensureCapacity(int nodes) {
+
+		if(nodes > keys.length) {
+
+			int capacity = Math.max(nodes, keys.length + (keys.length >> 1) + 1);
+
+			keys = Arrays.copyOf(keys, capacity);
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			heights = Arrays.copyOf(heights, capacity);
+
+			if(tags != null) {
+
+				tags = Arrays.copyOf(tags, capacity);
+			}
+		}
+	}
+
+	/**
+	 * Número de elementos en el árbol.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Índice del nodo raíz (NIL si el árbol está vacío).
+	 */
+	public int rootNode() {
+		return root;
+	}
+
+	/**
+	 * Índice del hijo izquierdo del nodo n (NIL si es vacío).
+	 */
+	public int leftNode(int n) {
+		return left[n];
+	}
+
+	/**
+	 * Índice del hijo derecho del nodo n (NIL si es vacío).
+	 */
+	public int rightNode(int n) {
+		return right[n];
+	}
+
+	/**
+	 * Contenido del nodo n.
+	 */
+	@SuppressWarnings("unchecked")
+	public T contentOf(int n) {
+		return (T) keys[n];
+	}
+
+	/**
+	 * Altura del sub-árbol con raíz en el nodo n (0 si n es NIL).
+	 */
+	public int heightOf(int n) {
+		return n == NIL ? 0 : heights[n];
+	}
+
+	/**
+	 * Indica si el elemento está en el árbol.
+	 */
+	public boolean contains(T element) {
+		return findNode(element) != NIL;
+	}
+
+	/**
+	 * Índice del nodo con el elemento, o NIL si no está.
+	 */
+	public int findNode(T element) {
+
+		int n = root;
+
+		while(n != NIL) {
+
+			int cmp = contentOf(n).compareTo(element);
+
+			if(cmp == 0) {
+
+				return n;
+			}
+
+			n = cmp < 0 ? right[n] : left[n];
+		}
+
+		return NIL;
+	}
+
+	private void pushPath(int depth, int n) {
+
+		if(depth == path.length) {
+
+			path = Arrays.copyOf(path, path.length * 2);
+		}
+
+		path[depth] = n;
+	}
+
+	/**
+	 * Recalcula la altura de los nodos path[0..depth), de abajo arriba,
+	 * hasta que uno no cambia.
+	 */
+	private void updateHeights(int depth) {
+
+		for (int i = depth - 1; i >= 0; i--) {
+
+			int n = path[i];
+			int h = 1 + Math.max(heightOf(left[n]), heightOf(right[n]));
+
+			if(h == heights[n]) {
+
+				return;
+			}
+
+			heights[n] = h;
+		}
+	}
+
+	/**
+	 * Inserta todos los elementos del array en orden.
+	 *
+	 * O todos o ninguno; si alguno es 'null', no se inserta ninguno.
+	 *
+	 * @param elements elementos a insertar.
+	 */
+	@SafeVarargs
+	public final void insert(T ... elements) {
+
+		for (T t : elements) {
+
+			if(t == null) {
+
+				return;
+			}
+		}
+
+		for (T t : elements) {
+
+			insert(t);
+		}
+	}
+
+	/**
+	 * Inserta (como hoja) un nuevo elemento en el árbol de búsqueda.
+	 *
+	 * No se permiten elementos null. Si el elemento ya existe en el árbol NO lo inserta.
+	 *
+	 * @param element valor a insertar.
+	 */
+	public void insert(T element) {
+
+		if(element == null) {
+
+			throw new NullPointerException("no se permiten elementos null");
+		}
+
+		int depth = 0;
+		int n = root;
+		int cmp = 0;
+
+		while(n != NIL) {
+
+			cmp = contentOf(n).compareTo(element);
+
+			if(cmp == 0) {
+
+				return;
+			}
+
+			pushPath(depth++, n);
+			n = cmp < 0 ? right[n] : left[n];
+		}
+
+		n = newNode(element);
+
+		if(depth == 0) {
+
+			root = n;
+
+		}else if(cmp < 0) {
+
+			right[path[depth - 1]] = n;
+
+		}else {
+
+			left[path[depth - 1]] = n;
+		}
+
+		size++;
+		updateHeights(depth);
+	}
+
+	/**
+	 * Elimina los elementos dados del árbol.
+	 *
+	 * O todos o ninguno; si alguno es 'null', no se elimina ninguno.
+	 *
+	 * @param elements elementos a eliminar.
+	 * @throws NoSuchElementException si alguno no está en el árbol
+	 */
+	@SafeVarargs
+	public final void withdraw(T ... elements) {
+
+		for (T t : elements) {
+
+			if(t == null) {
+
+				return;
+			}
+		}
+
+		for (T t : elements) {
+
+			withdraw(t);
+		}
+	}
+
+	/**
+	 * Elimina un elemento del árbol.
+	 *
+	 * Si el nodo tiene dos hijos, se sustituye por el mayor de sus menores.
+	 *
+	 * @param element valor a eliminar.
+	 * @throws NoSuchElementException si el elemento no está en el árbol
+	 */
+	public void withdraw(T element) {
+
+		int depth = 0;
+		int n = root;
+
+		while(n != NIL) {
+
+			int cmp = contentOf(n).compareTo(element);
+
+			if(cmp == 0) {
+
+				break;
+			}
+
+			pushPath(depth++, n);
+			n = cmp < 0 ? right[n] : left[n];
+		}
+
+		if(n == NIL) {
+
+			throw new NoSuchElementException();
+		}
+
+		if(left[n] != NIL && right[n] != NIL) { //dos hijos: se sustituye por el mayor de sus menores
+
+			int node = n;
+
+			pushPath(depth++, node);
+			n = left[node];
+
+			while(right[n] != NIL) {
+
+				pushPath(depth++, n);
+				n = right[n];
+			}
+
+			keys[node] = keys[n];
+		}
+
+		//	n tiene como mucho un hijo, que ocupa su lugar
+		int child = left[n] != NIL ? left[n] : right[n];
+
+		if(depth == 0) {
+
+			root = child;
+
+		}else if(left[path[depth - 1]] == n) {
+
+			left[path[depth - 1]] = child;
+
+		}else {
+
+			right[path[depth - 1]] = child;
+		}
+
+		freeNode(n);
+		size--;
+		updateHeights(depth);
+	}
+
+	private int newNode(T element) {
+
+		int n;
+
+		if(freeHead != NIL) {
+
+			n = freeHead;
+			freeHead = left[n];
+
+		}else {
+
+			ensureCapacity(slots + 1);
+			n = slots++;
+		}
+
+		keys[n] = element;
+		left[n] = NIL;
+		right[n] = NIL;
+		heights[n] = 1;
+
+		return n;
+	}
+
+	private void freeNode(int n) {
+
+		keys[n] = null;
+		left[n] = freeHead;
+		freeHead = n;
+
+		if(tags != null) {
+
+			tags[n] = null;
+		}
+	}
+
+	/**
+	 * Devuelve un iterador que recorre los elementos del arbol en inorden
+	 * (de menor a mayor).
+	 *
+	 * @return iterador para el recorrido inorden o ascendente
+	 */
+	public Iterator<T> iteratorInorden() {
+
+		return new IteratorInorden();
+	}
+
+	private class IteratorInorden implements Iterator<T> {
+
+		private int[] pending = new int[Math.max(heightOf(root), 1)];
+		private int top;
+
+		IteratorInorden() {
+
+			pushLeftPath(root);
+		}
+
+		private void pushLeftPath(int n) {
+
+			while(n != NIL) {
+
+				//	El árbol puede haber crecido desde que se creó el iterador
+				if(top == pending.length) {
+
+					pending = Arrays.copyOf(pending, pending.length * 2);
+				}
+
+				pending[top++] = n;
+				n = left[n];
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+
+			return top > 0;
+		}
+
+		@Override
+		public T next() {
+
+			if(top == 0) {
+
+				throw new NoSuchElementException();
+			}
+
+			int n = pending[--top];
+			pushLeftPath(right[n]);
+
+			return contentOf(n);
+		}
+	}
+
+	/*
+	 * Vista TreeADT de la raíz
+	 */
+
+	@Override
+	public boolean isEmpty() {
+		return root == NIL;
+	}
+
+	@Override
+	public boolean isLeaf() {
+		return isLeaf(root);
+	}
+
+	@Override
+	public int getDegree() {
+		return getDegree(root);
+	}
+
+	@Override
+	public int getMaxDegree() {
+		return 2;
+	}
+
+	@Override
+	public TreeADT<T> getSubtree(int n) {
+		return getSubtree(root, n);
+	}
+
+	@Override
+	public T getContent() {
+		return root == NIL ? null : contentOf(root);
+	}
+
+	@Override
+	public void setContent(T content) {
+		setContent(root, content);
+	}
+
+	@Override
+	public int height() {
+		return heightOf(root);
+	}
+
+	@Override
+	public Map<String, Object> getTags() {
+		return getTags(root);
+	}
+
+	@Override
+	public void setTag(String key, Object value) {
+		setTag(root, key, value);
+	}
+
+	@Override
+	public Object getTag(String key) {
+		return peekTags(root).get(key);
+	}
+
+	@Override
+	public void filterTags(String ... keep) {
+		filterTags(root, keep);
+	}
+
+	/**
+	 * Representa el árbol como string, con el mismo formato que
+	 * {@link AbstractTreeADT#toString()}.
+	 */
+	@Override
+	public String toString() {
+		return toString(root);
+	}
+
+	/**
+	 * Devuelve una representación en niveles del árbol, con el mismo
+	 * formato que {@link AbstractTreeADT#render()}.
+	 *
+	 * @return cada nodo se muestra según su profundidad.
+	 */
+	public String render() {
+		return render(root);
+	}
+
+	/*
+	 * Operaciones TreeADT sobre un nodo cualquiera
+	 */
+
+	private boolean isLeaf(int n) {
+
+		if(n == NIL) {
+
+			throw new IllegalStateException("isLeaf() no puede aplicarse a árboles vacíos");
+		}
+
+		return left[n] == NIL && right[n] == NIL;
+	}
+
+	private int getDegree(int n) {
+		return n == NIL ? 0 : (left[n] == NIL ? 0 : 1) + (right[n] == NIL ? 0 : 1);
+	}
+
+	private TreeADT<T> getSubtree(int node, int n) {
+
+		switch (n) {
+		case 0:
+			return new Subtree(node == NIL ? NIL : left[node]);
+		case 1:
+			return new Subtree(node == NIL ? NIL : right[node]);
+		}
+
+		throw new IllegalStateException("getSubtree(n) on a binary tree needs n in {0,1}");
+	}
+
+	private void setContent(int n, T content) {
+
+		if(n == NIL) {
+
+			throw new UnsupportedOperationException("los nodos se crean con insert()");
+		}
+
+		keys[n] = content;
+	}
+
+	/**
+	 * El mapa de etiquetas del nodo n, que se puede modificar; si no tenía,
+	 * se crea aquí. El árbol vacío no admite etiquetas.
+	 */
+	private Map<String, Object> getTags(int n) {
+
+		if(n == NIL) {
+
+			return Collections.emptyMap();
+		}
+
+		if(tags == null) {
+
+			tags = new TagMap[keys.length];
+		}
+
+		if(tags[n] == null) {
+
+			tags[n] = new TagMap();
+		}
+
+		return tags[n];
+	}
+
+	/**
+	 * Las etiquetas del nodo n sin crear su mapa si no tiene, para las
+	 * operaciones que sólo las leen.
+	 */
+	private Map<String, Object> peekTags(int n) {
+
+		if(n == NIL || tags == null || tags[n] == null) {
+
+			return Collections.emptyMap();
+		}
+
+		return tags[n];
+	}
+
+	private void setTag(int n, String key, Object value) {
+
+		if(n == NIL) {
+
+			throw new UnsupportedOperationException("un árbol vacío no admite etiquetas");
+		}
+
+		getTags(n).put(key, value);
+	}
+
+	private void filterTags(int node, String ... keep) {
+
+		if(tags == null || node == NIL) {
+
+			return;
+		}
+
+		int[] pending = new int[heightOf(node) + 1];
+		int top = 0;
+
+		pending[top++] = node;
+
+		while(top > 0) {
+
+			int n = pending[--top];
+
+			if(tags[n] != null) {
+
+				tags[n].retainKeys(keep);
+			}
+
+			if(left[n] != NIL) {
+
+				pending[top++] = left[n];
+			}
+
+			if(right[n] != NIL) {
+
+				pending[top++] = right[n];
+			}
+		}
+	}
+
+	private void appendTags(int n, StringBuilder sb) {
+
+		Map<String, Object> t = peekTags(n);
+
+		if(t.isEmpty() == false) {
+
+			List<String> sk = new ArrayList<String>(t.keySet());
+
+			Collections.sort(sk);
+			sb.append(" [");
+
+			for (int i = 0; i < sk.size(); i++) {
+
+				sb.append(i == 0 ? "(" : ", (").append(sk.get(i)).append(", ").append(t.get(sk.get(i))).append(')');
+			}
+
+			sb.append(']');
+		}
+	}
+
+	//	Marcas en la pila de toString(), además de los índices de nodo
+	private static final int CLOSE = -2;
+	private static final int SEPARATOR = -3;
+
+	private String toString(int node) {
+
+		StringBuilder sb = new StringBuilder();
+		int[] pending = new int[16];
+		int top = 0;
+
+		pending[top++] = node;
+
+		while(top > 0) {
+
+			int n = pending[--top];
+
+			if(n == CLOSE) {
+
+				sb.append('}');
+
+			}else if(n == SEPARATOR) {
+
+				sb.append(", ");
+
+			}else if(n == NIL) {
+
+				sb.append(AbstractTreeADT.EMPTY_TREE_MARK);
+
+			}else {
+
+				sb.append('{').append(keys[n]);
+				appendTags(n, sb);
+
+				if(top + 5 > pending.length) {
+
+					pending = Arrays.copyOf(pending, pending.length * 2);
+				}
+
+				//	Se sacarán en orden inverso: ", izq, der}"
+				pending[top++] = CLOSE;
+				pending[top++] = right[n];
+				pending[top++] = SEPARATOR;
+				pending[top++] = left[n];
+				pending[top++] = SEPARATOR;
+			}
+		}
+
+		return sb.toString();
+	}
+
+	private String render(int node) {
+
+		StringBuilder sb = new StringBuilder();
+		int[] pending = new int[16];
+		int[] depths = new int[16];
+		int top = 0;
+
+		pending[top] = node;
+		depths[top++] = 0;
+
+		while(top > 0) {
+
+			int n = pending[--top];
+			int depth = depths[top];
+
+			for (int i = 0; i < depth; i++) {
+
+				sb.append("|  ");
+			}
+
+			if(n == NIL) {
+
+				sb.append(AbstractTreeADT.EMPTY_TREE_MARK).append('\n');
+				continue;
+			}
+
+			sb.append(keys[n]);
+			appendTags(n, sb);
+			sb.append('\n');
+
+			if(top + 2 > pending.length) {
+
+				pending = Arrays.copyOf(pending, pending.length * 2);
+				depths = Arrays.copyOf(depths, depths.length * 2);
+			}
+
+			pending[top] = right[n];
+			depths[top++] = depth + 1;
+			pending[top] = left[n];
+			depths[top++] = depth + 1;
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Vista TreeADT de un sub-árbol: sólo guarda el índice de su raíz.
+	 */
+	private class Subtree implements TreeADT<T> {
+
+		private final int node;
+
+		Subtree(int node) {
+			this.node = node;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return node == NIL;
+		}
+
+		@Override
+		public boolean isLeaf() {
+			return ArrayBinarySearchTree.this.isLeaf(node);
+		}
+
+		@Override
+		public int getDegree() {
+			return ArrayBinarySearchTree.this.getDegree(node);
+		}
+
+		@Override
+		public int getMaxDegree() {
+			return 2;
+		}
+
+		@Override
+		public TreeADT<T> getSubtree(int n) {
+			return ArrayBinarySearchTree.this.getSubtree(node, n);
+		}
+
+		@Override
+		public T getContent() {
+			return node == NIL ? null : contentOf(node);
+		}
+
+		@Override
+		public void setContent(T content) {
+			ArrayBinarySearchTree.this.setContent(node, content);
+		}
+
+		@Override
+		public int height() {
+			return heightOf(node);
+		}
+
+		@Override
+		public Map<String, Object> getTags() {
+			return ArrayBinarySearchTree.this.getTags(node);
+		}
+
+		@Override
+		public void setTag(String key, Object value) {
+			ArrayBinarySearchTree.this.setTag(node, key, value);
+		}
+
+		@Override
+		public Object getTag(String key) {
+			return ArrayBinarySearchTree.this.peekTags(node).get(key);
+		}
+
+		@Override
+		public void filterTags(String ... keep) {
+			ArrayBinarySearchTree.this.filterTags(node, keep);
+		}
+
+		@Override
+		public String toString() {
+			return ArrayBinarySearchTree.this.toString(node);
+		}
+
+		public String render() {
+			return ArrayBinarySearchTree.this.render(node);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package ule.edi.tree;
+
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class ArrayBinarySearchTreeTests {
+
+	private ArrayBinarySearchTree<Integer> TE = null;
+
+	/*
+	* 50
+	* |  30
+	* |  |  10
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  40
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  80
+	* |  |  60
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  ∅
+	*/
+	private ArrayBinarySearchTree<Integer> TC = null;
+
+	@Before
+	public void setupArrayBSTs() {
+
+		TE = new ArrayBinarySearchTree<Integer>();
+
+		TC = new ArrayBinarySearchTree<Integer>(2);
+		TC.insert(50, 30, 80, 10, 40, 60);
+		Assert.assertEquals("{50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}", TC.toString());
+	}
+
+	@Test
+	public void testSameShapeAsBinarySearchTreeADTImpl() {
+
+		Random rnd = new Random(11);
+		BinarySearchTreeADTImpl<Integer> expected = new BinarySearchTreeADTImpl<Integer>();
+
+		for (int i = 0; i < 3000; i++) {
+
+			int k = rnd.nextInt(500);
+
+			if (rnd.nextInt(3) > 0) {
+
+				TE.insert(k);
+				expected.insert(k);
+
+			} else if (expected.contains(k)) {
+
+				TE.withdraw(k);
+				expected.withdraw(k);
+			}
+		}
+
+		Assert.assertEquals(expected.toString(), TE.toString());
+		Assert.assertEquals(expected.render(), TE.render());
+		Assert.assertEquals(expected.size(), TE.size());
+		Assert.assertEquals(expected.height(), TE.height());
+	}
+
+	@Test
+	public void testWithdraw() {
+
+		TC.withdraw(50);
+		Assert.assertEquals("{40, {30, {10, ∅, ∅}, ∅}, {80, {60, ∅, ∅}, ∅}}", TC.toString());
+		TC.withdraw(80, 30);
+		Assert.assertEquals("{40, {10, ∅, ∅}, {60, ∅, ∅}}", TC.toString());
+		Assert.assertEquals(3, TC.size());
+		Assert.assertEquals(2, TC.height());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testWithdrawNotFound() {
+
+		TC.withdraw(70);
+	}
+
+	@Test
+	public void testFreeSlotsAreReused() {
+
+		int slot = TC.findNode(10);
+
+		TC.withdraw(10);
+		Assert.assertEquals(ArrayBinarySearchTree.NIL, TC.findNode(10));
+
+		TC.insert(20);
+		Assert.assertEquals(slot, TC.findNode(20));
+	}
+
+	@Test
+	public void testIndexNavigation() {
+
+		int n = TC.rootNode();
+
+		Assert.assertEquals(50, TC.contentOf(n).intValue());
+		Assert.assertEquals(30, TC.contentOf(TC.leftNode(n)).intValue());
+		Assert.assertEquals(ArrayBinarySearchTree.NIL, TC.rightNode(TC.rightNode(n)));
+		Assert.assertEquals(2, TC.heightOf(TC.rightNode(n)));
+		Assert.assertEquals(ArrayBinarySearchTree.NIL, TE.rootNode());
+	}
+
+	@Test
+	public void testTreeADTView() {
+
+		TreeADT<Integer> r = TC.getSubtree(1);
+
+		Assert.assertEquals(80, r.getContent().intValue());
+		Assert.assertEquals(1, r.getDegree());
+		Assert.assertEquals(2, r.height());
+		Assert.assertTrue(r.getSubtree(1).isEmpty());
+		Assert.assertTrue(r.getSubtree(0).isLeaf());
+		Assert.assertEquals("{80, {60, ∅, ∅}, ∅}", r.toString());
+		Assert.assertEquals(2, TC.getDegree());
+		Assert.assertEquals(0, TE.height());
+		Assert.assertNull(TE.getContent());
+	}
+
+	@Test
+	public void testTags() {
+
+		TC.getSubtree(0).setTag("b", 2);
+		TC.getSubtree(0).setTag("a", 1);
+		TC.setTag("a", 0);
+		Assert.assertEquals(1, TC.getSubtree(0).getTag("a"));
+		Assert.assertNull(TC.getSubtree(1).getTag("a"));
+		Assert.assertEquals("{50 [(a, 0)], {30 [(a, 1), (b, 2)], {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}", TC.toString());
+		Assert.assertTrue(TC.render().startsWith("50 [(a, 0)]\n|  30 [(a, 1), (b, 2)]\n"));
+
+		TC.filterTags("b");
+		Assert.assertEquals("{50, {30 [(b, 2)], {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}", TC.toString());
+	}
+
+	@Test
+	public void testGetTagsIsModifiable() {
+
+		//	Como en AbstractTreeADT, el mapa de un nodo sin etiquetas se crea al pedirlo
+		TC.getSubtree(0).getTags().put("a", 1);
+		TC.getTags().put("b", 2);
+		Assert.assertEquals(1, TC.getSubtree(0).getTag("a"));
+		Assert.assertEquals("{50 [(b, 2)], {30 [(a, 1)], {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}", TC.toString());
+		Assert.assertTrue(TC.getSubtree(1).getSubtree(1).getTags().isEmpty());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSetTagOnEmpty() {
+
+		TC.getSubtree(1).getSubtree(1).setTag("a", 1);
+	}
+
+	@Test
+	public void testInorderIterator() {
+
+		Iterator<Integer> i = TC.iteratorInorden();
+		StringBuilder sb = new StringBuilder();
+
+		while (i.hasNext()) {
+
+			sb.append(i.next()).append(' ');
+		}
+		Assert.assertEquals("10 30 40 50 60 80 ", sb.toString());
+	}
+
+	@Test
+	public void testInorderIteratorOutlivesGrowth() {
+
+		TE.insert(10);
+		Iterator<Integer> i = TE.iteratorInorden();
+
+		//	Rama izquierda de 20 niveles bajo una pila creada para altura 1
+		TE.insert(30);
+		for (int k = 29; k > 10; k--) {
+
+			TE.insert(k);
+		}
+
+		StringBuilder sb = new StringBuilder();
+
+		while (i.hasNext()) {
+
+			sb.append(i.next()).append(' ');
+		}
+		Assert.assertEquals("10 11 12 13 14 15 16 17 18 19 20 21 22 23 24 25 26 27 28 29 30 ", sb.toString());
+	}
+
+	@Test
+	public void testDegenerateTreeDoesNotOverflow() {
+
+		//	Con inserciones ordenadas construir la cadena es cuadrático, así
+		//	que se limita a 10000 niveles
+		int n = 10000;
+
+		for (int i = 0; i < n; i++) {
+
+			TE.insert(i);
+		}
+		Assert.assertEquals(n, TE.height());
+		Assert.assertTrue(TE.contains(n - 1));
+
+		String s = TE.toString();
+		Assert.assertTrue(s.startsWith("{0, ∅, {1, ∅, {2, ∅, "));
+		Assert.assertTrue(s.contains("{" + (n - 2) + ", ∅, {" + (n - 1) + ", ∅, ∅}}}"));
+
+		TE.withdraw(0);
+		Assert.assertEquals(n - 1, TE.height());
+	}
+}
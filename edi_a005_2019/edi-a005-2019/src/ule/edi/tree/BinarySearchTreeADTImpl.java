@@ -1,14 +1,28 @@
 package ule.edi.tree;
 
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Stack;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import jdk.nashorn.internal.ir.BinaryNode;
+import ule.edi.tree.TreeTraversal.Action;
+import ule.edi.tree.TreeTraversal.Order;
 
 /**
  * Árbol binario de búsqueda (binary search tree, BST).
@@ -49,6 +63,11 @@ import jdk.nashorn.internal.ir.BinaryNode;
  * Con {@link #setTag(String, Object)} se inserta un par (clave,valor)
  * y con {@link #getTag(String)} se consulta.
  * 
+ * Todos los sub-árboles vacíos son un único árbol vacío compartido e
+ * inmutable: los que devuelve getSubtree() (o getLeftBST() y
+ * getRightBST()) no admiten insert(), setContent() ni etiquetas. Los
+ * elementos se insertan siempre desde un nodo no vacío o desde la raíz.
+ * 
  * 
  * Con <T extends Comparable<? super T>> se pide que exista un orden en
  * los elementos. Se necesita para poder comparar elementos al insertar.
@@ -63,8 +82,25 @@ import jdk.nashorn.internal.ir.BinaryNode;
 public class BinarySearchTreeADTImpl<T extends Comparable<? super T>> extends
 		AbstractBinaryTreeADT<T> {
 
+	//	Número de elementos de este sub-árbol, "0" para los vacíos
+	//
+	protected int subtreeSize;
+	
+	//	Altura de este sub-árbol, "0" para los vacíos
+	//
+	protected int subtreeHeight;
+	
+	//	Caché de getSubtreeWithPath(long, int), null si no se usa; sabe
+	//	también si ha cambiado la estructura desde que se llenó
+	//
+	private PathCache<T> pathCache;
+
 	/**
 	 * Devuelve el árbol binario de búsqueda izquierdo.
+	 * 
+	 * Si está vacío es el árbol vacío compartido, que no se puede
+	 * modificar: insert() sobre él lanza UnsupportedOperationException. Para
+	 * añadir elementos hay que insertarlos en un nodo no vacío (la raíz).
 	 */
 	protected BinarySearchTreeADTImpl<T> getLeftBST() {
 		//	El atributo leftSubtree es de tipo AbstractBinaryTreeADT<T> pero
@@ -73,21 +109,35 @@ public class BinarySearchTreeADTImpl<T extends Comparable<? super T>> extends
 		return (BinarySearchTreeADTImpl<T>) leftSubtree;
 	}
 
-	private void setLeftBST(BinarySearchTreeADTImpl<T> left) {
+	protected void setLeftBST(BinarySearchTreeADTImpl<T> left) {
 		this.leftSubtree = left;
 	}
 	
 	/**
-	 * Devuelve el árbol binario de búsqueda derecho.
+	 * Devuelve el árbol binario de búsqueda derecho. Como en
+	 * {@link #getLeftBST()}, si está vacío no se puede modificar.
 	 */
 	protected BinarySearchTreeADTImpl<T> getRightBST() {
 		return (BinarySearchTreeADTImpl<T>) rightSubtree;
 	}
 
-	private void setRightBST(BinarySearchTreeADTImpl<T> right) {
+	protected void setRightBST(BinarySearchTreeADTImpl<T> right) {
 		this.rightSubtree = right;
 	}
 	
+	//	Árbol vacío compartido: todos los sub-árboles vacíos apuntan a esta
+	//	única instancia inmutable, en lugar de crear dos nodos vacíos (cada
+	//	uno con su mapa de etiquetas) por cada elemento insertado.
+	//
+	//	Sólo la raíz de un árbol vacío es un nodo vacío propio.
+	//
+	@SuppressWarnings("rawtypes")
+	private static final BinarySearchTreeADTImpl EMPTY = new BinarySearchTreeADTImpl();
+	
+	static {
+		sealEmpty(EMPTY);
+	}
+	
 	/**
 	 * Árbol BST vacío
 	 */
@@ -99,10 +149,76 @@ public class BinarySearchTreeADTImpl<T extends Comparable<? super T>> extends
 		setRightBST(null);
 	}
 
-	private BinarySearchTreeADTImpl<T> emptyBST() {
+	/**
+	 * Prepara un árbol vacío para usarse como vacío compartido: no admite etiquetas.
+	 */
+	protected static void sealEmpty(BinarySearchTreeADTImpl<?> empty) {
+		empty.tags = Collections.emptyMap();
+	}
+	
+	/**
+	 * Devuelve el árbol vacío compartido, inmutable.
+	 * 
+	 * Las subclases (por ejemplo, {@link AVLTreeADTImpl}) lo redefinen
+	 * para que sus sub-árboles vacíos sean también de su tipo.
+	 */
+	@SuppressWarnings("unchecked")
+	protected BinarySearchTreeADTImpl<T> emptyBST() {
+		return EMPTY;
+	}
+	
+	/**
+	 * Crea un nodo nuevo, vacío y modificable, del mismo tipo que éste.
+	 */
+	protected BinarySearchTreeADTImpl<T> newBST() {
 		return new BinarySearchTreeADTImpl<T>();
 	}
 	
+	/**
+	 * Indica si éste es el árbol vacío compartido.
+	 */
+	protected boolean isSharedEmpty() {
+		return this == emptyBST();
+	}
+	
+	/**
+	 * Convierte este árbol (vacío) en una hoja con el elemento dado.
+	 */
+	protected void becomeLeaf(T element) {
+		
+		setContent(element);
+		setLeftBST(emptyBST());
+		setRightBST(emptyBST());
+		subtreeChanged();
+	}
+	
+	/**
+	 * Deja vacía la raíz del árbol completo.
+	 */
+	protected void becomeEmpty() {
+		
+		setContent(null);
+		setLeftBST(null);
+		setRightBST(null);
+		subtreeSize = 0;
+		subtreeHeight = 0;
+	}
+	
+	/**
+	 * El árbol vacío compartido no admite contenido.
+	 * 
+	 * @throws UnsupportedOperationException si se aplica al árbol vacío compartido
+	 */
+	@Override
+	public void setContent(T content) {
+		
+		if(isSharedEmpty() == true) {
+			
+			throw new UnsupportedOperationException("setContent() no puede aplicarse al árbol vacío compartido");
+		}
+		super.setContent(content);
+	}
+	
 	/**
 	 * Inserta todos los elementos de una colección en el árbol.
 	 * 
@@ -166,39 +282,288 @@ public class BinarySearchTreeADTImpl<T extends Comparable<? super T>> extends
 	
 	
 	/**
-	 * Inserta de forma recursiva (como hoja) un nuevo elemento en el árbol de búsqueda.
+	 * Carga de golpe todos los elementos de una colección, dejando el
+	 * árbol perfectamente equilibrado.
+	 * 
+	 * A diferencia de {@link #insert(Collection)}, la forma del árbol no
+	 * depende del orden de inserción: los elementos se ordenan (si no lo
+	 * estaban ya), se quitan los repetidos, se mezclan con los que ya
+	 * hubiera en el árbol y se reconstruye el árbol en tiempo lineal, con
+	 * el elemento central de cada tramo como raíz.
+	 * 
+	 * Los nodos que ya existían se reutilizan, así que conservan sus etiquetas.
+	 * 
+	 * O todos o ninguno; si alguno es 'null', el árbol no cambia.
+	 * 
+	 * @param elements
+	 *            valores a insertar.
+	 */
+	public void bulkLoad(Collection<T> elements) {
+		
+		bulkLoad(elements.toArray());
+	}
+	
+	/**
+	 * Carga de golpe todos los elementos de un array, dejando el árbol
+	 * perfectamente equilibrado. Ver {@link #bulkLoad(Collection)}.
+	 * 
+	 * @param elements elementos a insertar.
+	 */
+	@SafeVarargs
+	public final void bulkLoad(T ... elements) {
+		
+		//	Copia elemento a elemento: el array de argumentos no sale de aquí
+		Object[] keys = new Object[elements.length];
+		
+		for(int i = 0; i < elements.length; i++) {
+			
+			keys[i] = elements[i];
+		}
+		
+		bulkLoad(keys);
+	}
+	
+	/**
+	 * Carga de golpe los elementos de un array propio (se puede reordenar).
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void bulkLoad(Object[] keys) {
+		
+		boolean sorted = true;
+		
+		for(int i = 0; i < keys.length; i++) {
+			
+			if(keys[i] == null) {
+				
+				return;
+			}
+			
+			if(i > 0 && sorted == true && ((T) keys[i - 1]).compareTo((T) keys[i]) > 0) {
+				
+				sorted = false;
+			}
+		}
+		
+		if(sorted == false) {
+			
+			Arrays.sort(keys);
+		}
+		
+		List<BinarySearchTreeADTImpl<T>> current = inorderNodes();
+		
+		//	Mezcla ordenada de los nodos actuales con los nuevos, sin repetidos
+		BinarySearchTreeADTImpl<T>[] nodes = new BinarySearchTreeADTImpl[current.size() + keys.length];
+		int n = 0;
+		int i = 0;
+		int j = 0;
+		
+		while(i < current.size() || j < keys.length) {
+			
+			if(j < keys.length && n > 0 && nodes[n - 1].content.compareTo((T) keys[j]) == 0) {
+				
+				j++; //repetido
+				
+			}else if(j == keys.length || (i < current.size() && current.get(i).content.compareTo((T) keys[j]) <= 0)) {
+				
+				nodes[n++] = current.get(i++);
+				
+			}else {
+				
+				BinarySearchTreeADTImpl<T> node = newBST();
+				node.content = (T) keys[j++];
+				nodes[n++] = node;
+			}
+		}
+		
+		if(n == 0) {
+			
+			return;
+		}
+		
+		//	La raíz tiene que seguir siendo este objeto: intercambia contenido
+		//	y etiquetas con el nodo que queda en el centro
+		int mid = (n - 1) >>> 1;
+		BinarySearchTreeADTImpl<T> center = nodes[mid];
+		
+		if(center != this) {
+			
+			int self = -1;
+			
+			for(int k = 0; k < n; k++) {
+				
+				if(nodes[k] == this) {
+					
+					self = k;
+					break;
+				}
+			}
+			
+			T c = this.content;
+			Map<String, Object> t = this.tags;
+			
+			this.content = center.content;
+			this.tags = center.tags;
+			center.content = c;
+			center.tags = t;
+			
+			nodes[mid] = this;
+			
+			if(self >= 0) {
+				
+				nodes[self] = center;
+			}
+		}
+		
+		buildBalanced(nodes, 0, n - 1);
+		pathsChanged();
+	}
+	
+	/**
+	 * Enlaza los nodos ordenados nodes[lo..hi] como árbol equilibrado.
+	 * 
+	 * La profundidad de la recursividad es logarítmica.
+	 * 
+	 * @return raíz del tramo, o el árbol vacío compartido si el tramo está vacío.
+	 */
+	private BinarySearchTreeADTImpl<T> buildBalanced(BinarySearchTreeADTImpl<T>[] nodes, int lo, int hi) {
+		
+		if(lo > hi) {
+			
+			return emptyBST();
+		}
+		
+		int mid = (lo + hi) >>> 1;
+		BinarySearchTreeADTImpl<T> node = nodes[mid];
+		
+		node.setLeftBST(buildBalanced(nodes, lo, mid - 1));
+		node.setRightBST(buildBalanced(nodes, mid + 1, hi));
+		node.subtreeChanged();
+		
+		return node;
+	}
+	
+	/**
+	 * Lista, en inorden, de los nodos no vacíos de este árbol.
+	 */
+	List<BinarySearchTreeADTImpl<T>> inorderNodes() {
+		
+		List<BinarySearchTreeADTImpl<T>> result = new ArrayList<BinarySearchTreeADTImpl<T>>();
+		Deque<BinarySearchTreeADTImpl<T>> pending = new ArrayDeque<BinarySearchTreeADTImpl<T>>();
+		BinarySearchTreeADTImpl<T> node = this;
+		
+		while(node.isEmpty() == false || pending.isEmpty() == false) {
+			
+			while(node.isEmpty() == false) {
+				
+				pending.push(node);
+				node = node.getLeftBST();
+			}
+			
+			node = pending.pop();
+			result.add(node);
+			node = node.getRightBST();
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Se llama, de abajo a arriba, sobre cada nodo no vacío cuyos
+	 * descendientes han cambiado (al insertar, eliminar o reconstruir
+	 * el árbol en {@link #bulkLoad(Collection)}).
+	 * 
+	 * Recalcula el tamaño y la altura del sub-árbol; las subclases que
+	 * guardan otra información calculada a partir de los hijos la
+	 * actualizan aquí.
+	 */
+	protected void subtreeChanged() {
+		subtreeSize = 1 + getLeftBST().subtreeSize + getRightBST().subtreeSize;
+		subtreeHeight = 1 + Math.max(getLeftBST().subtreeHeight, getRightBST().subtreeHeight);
+	}
+	
+	/**
+	 * La altura se mantiene en cada nodo al insertar y eliminar, no hace
+	 * falta recorrer el árbol.
+	 */
+	@Override
+	public int height() {
+		return subtreeHeight;
+	}
+	
+	/**
+	 * Inserta (como hoja) un nuevo elemento en el árbol de búsqueda.
 	 * 
 	 * No se permiten elementos null. Si el elemento ya existe en el árbol NO lo inserta.
 	 * 
+	 * Se desciende con un bucle, no con recursividad, de forma que no se
+	 * desborda la pila aunque el árbol esté muy degenerado.
+	 * 
+	 * Sólo se actualizan el tamaño y la altura guardados en este nodo y
+	 * en los que quedan por debajo; si este no es la raíz del árbol
+	 * completo, los de sus antecesores quedan desfasados.
+	 * 
 	 * @param element
 	 *            valor a insertar.
+	 * @throws NullPointerException si element es null
 	 */
 	public void insert(T element) {
-		//	No se admiten null
 		
+		if(element == null) {
+			
+			throw new NullPointerException("no se permiten elementos null");
+		}
+		
+		//	Nodos recorridos, para actualizar sus tamaños al terminar
+		BinarySearchTreeADTImpl<T>[] path = newArray(Math.max(subtreeHeight, 1));
+		int top = 0;
+		BinarySearchTreeADTImpl<T> parent = null;
+		BinarySearchTreeADTImpl<T> node = this;
+		int cmp = 0;
+		
+		while(node.isEmpty() == false) {
 			
-		if(isEmpty()) {
+			cmp = node.content.compareTo(element);
 			
-			emptyBST(); //creamos un nodo vacío
+			if(cmp == 0) { //ya está, no se inserta
+				
+				return;
+			}
+			
+			parent = node;
+			path = push(path, top++, node);
+			
+			if(cmp < 0) { //bajamos por la derecha
+				
+				node = node.getRightBST();
+				
+			}else { //bajamos por la izquierda
+				
+				node = node.getLeftBST();
+			}
+		}
+		
+		pathsChanged();
+		
+		if(parent == null) { //el árbol estaba vacío, la raíz pasa a ser hoja
 			
-			setContent(element);
-			setLeftBST(emptyBST());
-			setRightBST(emptyBST());
+			becomeLeaf(element);
 			
-		}else { 
+		}else { //el sub-árbol vacío es compartido, se cuelga un nodo nuevo
 			
-			if(this.content.equals(element) == false) {
+			BinarySearchTreeADTImpl<T> leaf = newBST();
+			leaf.becomeLeaf(element);
 			
-					if(this.content.compareTo(element) < 0) { //bajamos por la derecha
-
-						getRightBST().insert(element);
-						
-					}else if(this.content.compareTo(element) > 0) { //bajamos por la izquierda
-						
-						getLeftBST().insert(element);
-					}
+			if(cmp < 0) {
+				
+				parent.setRightBST(leaf);
+				
+			}else {
+				
+				parent.setLeftBST(leaf);
 			}
 		}
+		
+		subtreesChanged(path, top);
 	}
 	
 	
@@ -256,419 +621,1440 @@ public class BinarySearchTreeADTImpl<T extends Comparable<? super T>> extends
 	/**
 	 * Elimina un elemento del árbol.
 	 * 
+	 * Tanto la búsqueda como la sustitución por el predecesor se hacen
+	 * con bucles, sin recursividad.
+	 * 
+	 * Como en {@link #insert(Comparable)}, si este no es la raíz del árbol
+	 * completo, el tamaño y la altura de sus antecesores quedan desfasados.
+	 * 
 	 * @throws NoSuchElementException si el elemento a eliminar no está en el árbol           
 	 */
 	public void withdraw(T element) {
 		// 	Si el elemento tiene dos hijos, se tomará el criterio de sustituir el elemento por el mayor de sus menores y eliminar el mayor de los menores.
 		
+		//	Nodos recorridos, para actualizar sus tamaños al terminar
+		BinarySearchTreeADTImpl<T>[] path = newArray(Math.max(subtreeHeight, 1));
+		int top = 0;
+		BinarySearchTreeADTImpl<T> parent = null;
+		BinarySearchTreeADTImpl<T> node = this;
 		
-		if(isEmpty() == false) {
+		while(true) {
 			
-			if(this.content.equals(element) == false) {
+			if(node.isEmpty() == true) {
 				
-				if(this.content.compareTo(element) < 0) { //bajamos por la derecha
-
-					getRightBST().withdraw(element);
-					
-				}else if(this.content.compareTo(element) > 0) { //bajamos por la izquierda
-					
-					getLeftBST().withdraw(element);
-				}
+				throw new NoSuchElementException();
+			}
+			
+			int cmp = node.content.compareTo(element);
+			
+			if(cmp == 0) {
 				
-			}else { //borramos el nodo pero hay tres casos
+				break;
+			}
+			
+			parent = node;
+			path = push(path, top++, node);
+			
+			if(cmp < 0) { //bajamos por la derecha
 				
-				if(isLeaf() == true) {
-					
-					this.setContent(null);
-					this.setLeftBST(null);
-					this.setRightBST(null);
-					
-				}else if((getLeftBST().isEmpty() == true && getRightBST().isEmpty() == false)) { //tiene un solo hijo a la derecha
-					
-					this.setContent(getRightBST().content);
-					
-					this.setLeftBST(this.getRightBST().getLeftBST());
-					this.setRightBST(this.getRightBST().getRightBST());
-					
-				}else if((getLeftBST().isEmpty() == false && getRightBST().isEmpty() == true)) { //tiene un solo hijo a la izquierda
-					
-					this.setContent(getLeftBST().content);
-					 
-					this.setRightBST(this.getLeftBST().getRightBST());
-					this.setLeftBST(this.getLeftBST().getLeftBST());
-					
-				}else { //si tiene 2 hijos
-					
-					BinarySearchTreeADTImpl<T> aux = this.getLeftBST();
-					
-					while(aux.getRightBST().isEmpty() == false) {
-						
-						aux = aux.getRightBST();
-					}
-					
-					this.content = aux.content;
-					this.getLeftBST().withdraw(aux.content);
-				}
+				node = node.getRightBST();
 				
+			}else { //bajamos por la izquierda
 				
+				node = node.getLeftBST();
 			}
-		
-		}else if ((isEmpty() == true)){
-			
-			throw new NoSuchElementException();
 		}
-	}
-	
-	private BinarySearchTreeADTImpl<T> getSubtreeWithPathRec(String path, int index) {
-			
-		if(isEmpty() == false) {
-			if(index < path.length()){
+		
+		pathsChanged();
+		
+		if(node.getLeftBST().isEmpty() == false && node.getRightBST().isEmpty() == false) { //si tiene 2 hijos
 			
-				if(path.charAt(index) == '1') {
+			BinarySearchTreeADTImpl<T> auxParent = node;
+			BinarySearchTreeADTImpl<T> aux = node.getLeftBST();
+			path = push(path, top++, node);
 			
-					return this.getRightBST().getSubtreeWithPathRec(path, index+1);
-				
-				}else {
+			while(aux.getRightBST().isEmpty() == false) {
 				
-					return this.getLeftBST().getSubtreeWithPathRec(path, index+1);
-				}
-			
+				auxParent = aux;
+				path = push(path, top++, aux);
+				aux = aux.getRightBST();
 			}
+			
+			//	El mayor de los menores no tiene hijo derecho, se quita directamente
+			node.content = aux.content;
+			unlinkRoot(auxParent, aux);
+			
 		}else {
 			
-			throw new NoSuchElementException();
+			unlinkRoot(parent, node);
 		}
-		return this;
 		
+		subtreesChanged(path, top);
 	}
 	
 	/**
-	 * Devuelve el sub-árbol indicado. (para tests)
-	 * path será el camino para obtener el sub-arbol. Está formado por 0 y 1.
-	 * Si se codifica "bajar por la izquierda" como "0" y
-	 * "bajar por la derecha" como "1", el camino desde un 
-	 * nodo N hasta un nodo M (en uno de sus sub-árboles) será la
-	 * cadena de 0s y 1s que indica cómo llegar desde N hasta M.
-     *
-     * Se define también el camino vacío desde un nodo N hasta
-     * él mismo, como cadena vacía.
-	 * 
-	 * Si el subarbol no existe lanzará la excepción NoSuchElementException.
+	 * Array de sub-árboles de la longitud dada.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <E extends Comparable<? super E>> BinarySearchTreeADTImpl<E>[] newArray(int length) {
+		return new BinarySearchTreeADTImpl[length];
+	}
+	
+	/**
+	 * Guarda node en path[top], duplicando antes path si está lleno (la
+	 * altura guardada puede estar desfasada si se cambió un sub-árbol).
 	 * 
-	 * @param path
-	 * @return
-	 * @throws NoSuchElementException si el subarbol no existe
+	 * @return path, o el nuevo array si creció
 	 */
-	public BinarySearchTreeADTImpl<T> getSubtreeWithPath(String path) {
+	private static <E extends Comparable<? super E>> BinarySearchTreeADTImpl<E>[] push(BinarySearchTreeADTImpl<E>[] path, int top, BinarySearchTreeADTImpl<E> node) {
 		
-		if(isEmpty() == true) {
-			
-			throw new NoSuchElementException();
-			
-		}else if(path == "" || path == null){
+		if(top == path.length) {
 			
-			return this;
-			
-		}else {
-		
-			return getSubtreeWithPathRec(path, 0);
-	
-			}
+			path = Arrays.copyOf(path, top * 2);
 		}
+		
+		path[top] = node;
+		return path;
+	}
 	
-	public void parentChildPairsTagDescend(List<String> buffer) {
+	/**
+	 * Llama a subtreeChanged() en los top primeros nodos del camino, de
+	 * abajo a arriba.
+	 */
+	private static void subtreesChanged(BinarySearchTreeADTImpl<?>[] path, int top) {
 		
-		int [] i = {0};
+		while(top > 0) {
 			
-		parentChildPairsTagDescendRec(buffer, i);
-		
+			path[--top].subtreeChanged();
+		}
 	}
-		
 	
 	/**
-	 * Acumula en orden descendente, una lista con los pares 'padre-hijo' en este árbol.
-	 * 
-	 * Por ejemplo, sea un árbol "A":
+	 * Quita el nodo raíz de un sub-árbol, que tiene como mucho un hijo no vacío.
 	 * 
-	 * {10, {5, {2, ∅, ∅}, ∅}, {20, ∅, {30, ∅, ∅}}}
+	 * Si es hoja, su padre pasa a apuntar al árbol vacío compartido (o, si es
+	 * la raíz del árbol completo, queda vacío); si no, su único hijo sube a
+	 * ocupar su lugar.
 	 * 
-     * 10
-     * |  5
-     * |  |  2
-     * |  |  |  ∅
-     * |  |  |  ∅
-     *
-     * |  |  ∅
-     * |  20
-     * |  |  ∅
-     * |  |  30
-     * |  |  |  ∅
-     * |  |  |  ∅
-     * 
-	 * el resultado sería una lista de cadenas:
-	 * 
-	 * 	[(20,30), (10,20), (10,5), (5,2)]
-	 * 
-	 * y además quedaría etiquetado como:
-	 * 
-	 *  {10 [(descend, 3)], 
-	 *       {5 [(descend, 4)], {2 [(descend, 5)], ∅, ∅}, ∅}, 
-	 *       {20 [(descend, 2)], ∅, {30 [(descend, 1)], ∅, ∅}}}
-	 * 
-	 * @param buffer lista con el resultado.
+	 * @param parent padre del sub-árbol, null si es la raíz del árbol completo.
+	 * @param node sub-árbol cuya raíz se quita.
 	 */
-	private void parentChildPairsTagDescendRec(List<String> buffer, int [] i) {
+	private void unlinkRoot(BinarySearchTreeADTImpl<T> parent, BinarySearchTreeADTImpl<T> node) {
+		
+		if(node.isLeaf() == true) {
 			
-		if(isEmpty() == false) {
-			 //bajamos por la derecha mientras tenga hijo derecho
-
-				getRightBST().parentChildPairsTagDescendRec(buffer, i);
-				i[0]++;
-				this.setTag("descend", i[0]);
+			if(parent == null) {
 				
-				if(this.getRightBST().isEmpty() != true) { //tiene un hijo por la izq
-					
-					buffer.add("("+this.content + ", " + this.getRightBST().content + ")");
-				}
+				node.becomeEmpty();
 				
-				if(this.getLeftBST().isEmpty() != true) {
-					
-					buffer.add("(" + this.content + ", " + this.getLeftBST().content + ")");
-		
-				}
+			}else if(parent.getLeftBST() == node) {
+				
+				parent.setLeftBST(emptyBST());
+				
+			}else {
+				
+				parent.setRightBST(emptyBST());
+			}
 			
-			//bajamos por la izquierda
+		}else if(node.getLeftBST().isEmpty() == true) { //tiene un solo hijo a la derecha
 			
-			getLeftBST().parentChildPairsTagDescendRec(buffer,i);
-		
+			BinarySearchTreeADTImpl<T> child = node.getRightBST();
+			
+			node.setContent(child.content);
+			node.setLeftBST(child.getLeftBST());
+			node.setRightBST(child.getRightBST());
+			node.subtreeChanged();
+			
+		}else { //tiene un solo hijo a la izquierda
+			
+			BinarySearchTreeADTImpl<T> child = node.getLeftBST();
+			
+			node.setContent(child.content);
+			node.setRightBST(child.getRightBST());
+			node.setLeftBST(child.getLeftBST());
+			node.subtreeChanged();
 		}
 	}
 	
+	/**
+	 * Indica si el elemento está en el árbol, bajando por un único camino
+	 * según el orden (a diferencia de {@link #findInBinaryTree(Object, List)},
+	 * que recorre todo el árbol).
+	 * 
+	 * @param element elemento a buscar.
+	 * @return <tt>true</tt> si el árbol contiene al elemento dado
+	 */
+	public boolean contains(T element) {
 		
-	
+		BinarySearchTreeADTImpl<T> node = this;
+		
+		while(node.content != null) {
+			
+			int cmp = node.content.compareTo(element);
+			
+			if(cmp == 0) {
+				
+				return true;
+				
+			}else if(cmp < 0) {
+				
+				node = node.getRightBST();
+				
+			}else {
+				
+				node = node.getLeftBST();
+			}
+		}
+		
+		return false;
+	}
 	
 	/**
-	 * Importante: Solamente se debe recorrer el árbol una vez
-	 * 
-	 * Comprueba si los elementos de la lista coinciden con algún camino desde la raiz.
-	 * Además, si existe algún camino que coincida con los elementos de la lista, los etiqueta en el árbol,
-	 * numerandolos empezando por la raiz como 1.
-	 * 
-	 * Por ejemplo, el árbol
-	 * 
-	 * {50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
-	 * 
-	 * si path = [50, 30, 10]
-	 * 
-	 * devolvería true y el árbol quedaría así etiquetado:
-	 * 
-	 * {50 [(path, 1)], {30 [(path, 2)], {10 [(path, 3)], ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * Indica si están en el árbol todos los elementos de una lista ordenada
+	 * de menor a mayor (puede tener repetidos).
 	 * 
-	 * Para el mismo árbol, si path es [50, 40]  devolvería false y el árbol no quedaría así etiquetado:
-	 * {50 [(path, 1)], {30, {10, ∅, ∅}, {40 [(path, 2)], ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * Ver {@link #containsEach(List, boolean[])}.
 	 * 
-	 * Para el mismo árbol, si path es [50, 80]  devolvería true y el árbol  se etiqueta:
-	 * {50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * @param sortedKeys elementos a buscar, en orden ascendente.
+	 * @return <tt>true</tt> si el árbol los contiene todos.
+	 * @throws IllegalArgumentException si la lista no está ordenada.
+	 */
+	public boolean containsAll(List<T> sortedKeys) {
+		
+		return containsEach(sortedKeys, null) == sortedKeys.size();
+	}
+	
+	/**
+	 * Busca todos los elementos de una lista ordenada de menor a mayor en
+	 * una sola pasada, como una mezcla entre la lista y el recorrido inorden.
 	 * 
+	 * En lugar de bajar desde la raíz para cada elemento, se avanza desde la
+	 * posición del anterior: se descartan enteros los sub-árboles que quedan
+	 * por debajo del elemento buscado, y sólo se baja en el que puede
+	 * contenerlo.
 	 * 
-	 * @return  true si los elementos de la lista coinciden con algún camino desde la raiz,  falso si no es así
+	 * @param sortedKeys elementos a buscar, en orden ascendente.
+	 * @param found si no es null, found[i] indica si sortedKeys.get(i) está.
+	 * @return cuántos de los elementos están en el árbol.
+	 * @throws IllegalArgumentException si la lista no está ordenada.
 	 */
-	
-	private boolean isPathInRec(List<T> path, int index, int countTag) {
+	public int containsEach(List<T> sortedKeys, boolean[] found) {
 		
-		boolean isPath = false;
+		//	Pila como la de IteratorInorden: nodos pendientes, el menor arriba
+		BinarySearchTreeADTImpl<T>[] pending = newArray(Math.max(subtreeHeight, 1));
+		int top = 0;
+		int count = 0;
+		int i = 0;
+		T previous = null;
 		
-		if(index < path.size()) {
+		for(T key : sortedKeys) {
 			
-			if(path.get(index).equals(this.content) == true && index+1 < path.size()) {
+			if(previous == null) { //primera búsqueda, desde la raíz
 				
-				 //si hay mas elementos que mirar
-				countTag++;
+				top = pushCeilingPath(this, key, pending, top);
 				
-					if(path.get(index+1).compareTo(this.content) > 0) { //miramos cual es el siguiente para bajar por la izq o por la derch
-						
-						isPath = this.getRightBST().isPathInRec(path,index+1,countTag);
-						
-		
-					}else if(path.get(index+1).compareTo(this.content) < 0) {
-						
-						isPath = this.getLeftBST().isPathInRec(path, index+1,countTag);
-					}
+			}else if(previous.compareTo(key) > 0) {
+				
+				throw new IllegalArgumentException("containsEach() necesita los elementos en orden ascendente");
+				
+			}else {
+				
+				//	Avanza hasta el menor pendiente >= key
+				while(top > 0 && pending[top - 1].content.compareTo(key) < 0) {
 					
+					BinarySearchTreeADTImpl<T> passed = pending[--top];
 					
-			}else if(path.get(index).equals(this.content) == true && index+1 >= path.size()) {
-				countTag++;
-				isPath = true;
+					//	Su sub-árbol derecho es menor que el siguiente pendiente;
+					//	sólo hay que mirarlo si ese siguiente es mayor que key
+					if(top == 0 || pending[top - 1].content.compareTo(key) > 0) {
+						
+						top = pushCeilingPath(passed.getRightBST(), key, pending, top);
+					}
+				}
+			}
+			
+			boolean isIn = top > 0 && pending[top - 1].content.compareTo(key) == 0;
+			
+			if(isIn == true) {
 				
-			}else { //se ha encontrado un elemento diferente en el camino
+				count++;
+			}
+			
+			if(found != null) {
 				
-				isPath = false;
+				found[i] = isIn;
 			}
-		}
-		
-		if(isPath == true) {
 			
-			this.setTag("path", countTag);
+			i++;
+			previous = key;
 		}
 		
-		return isPath;
-
+		return count;
 	}
 	
-	
-	public boolean isPathIn(List<T> path) {
+	/**
+	 * Apila, desde node, los nodos mayores o iguales que key que se
+	 * encuentran al buscarlo; el último apilado es el menor de ellos.
+	 * 
+	 * @return nueva cima de la pila.
+	 */
+	private static <E extends Comparable<? super E>> int pushCeilingPath(BinarySearchTreeADTImpl<E> node, E key, BinarySearchTreeADTImpl<E>[] pending, int top) {
 		
-		if(isEmpty() == true) {
+		while(node.content != null) {
 			
-			return false;
-			
-		}else {
+			int cmp = node.content.compareTo(key);
 			
-			return isPathInRec(path, 0,0);
+			if(cmp >= 0) {
+				
+				pending[top++] = node;
+				
+				if(cmp == 0) {
+					
+					break;
+				}
+				node = node.getLeftBST();
+				
+			}else {
+				
+				node = node.getRightBST();
+			}
 		}
 		
+		return top;
 	}
-
+	
 	/**
+	 * Número de elementos en el árbol, sin recorrerlo.
 	 * 
-	 * Etiqueta cada nodo con su posición en el recorrido en anchura, con la etiqueta "width"
+	 * @return número de elementos.
+	 */
+	public int size() {
+		
+		return subtreeSize;
+	}
+	
+	/**
+	 * Posición que ocupa (u ocuparía) el elemento en el recorrido inorden,
+	 * empezando en "0"; es decir, cuántos elementos del árbol son menores.
 	 * 
-	 *  Por ejemplo, el árbol
+	 * Por ejemplo, en {50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * el rango de 40 es 2 y el de 55 es 4.
 	 * 
-	 * {50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * Cuesta lo que la altura del árbol.
 	 * 
-	 *  queda etiquetado como 
+	 * @param element elemento a buscar, puede no estar en el árbol.
+	 * @return número de elementos menores que el dado.
+	 */
+	public int rank(T element) {
+		
+		return countBelow(element, false);
+	}
+	
+	/**
+	 * Devuelve el k-ésimo menor elemento (empezando en "0").
 	 * 
-	 *   {50 [(width, 1)], 
-                 {30 [(width, 2)], {10 [(width, 4)], ∅, ∅},{40 [(width, 5)], ∅, ∅}},
-                 {80 [(width, 3)], {60 [(width, 6)], ∅, ∅}, ∅}}
+	 * Cuesta lo que la altura del árbol.
 	 * 
-
-	 */	
-	public void tagWidth(){
+	 * @param k posición en el recorrido inorden.
+	 * @return elemento en esa posición.
+	 * @throws IndexOutOfBoundsException si k no está en [0, size())
+	 */
+	public T select(int k) {
 		
-		if(isEmpty() == false ) {
+		if(k < 0 || k >= subtreeSize) {
 			
-			LinkedList<BinarySearchTreeADTImpl<T>> nodeQueue = new LinkedList<BinarySearchTreeADTImpl<T>>();
-	
-			nodeQueue.add(this);//encolamos la raiz en la cola
-			int pos = 1;
+			throw new IndexOutOfBoundsException("select(k) necesita k en [0, " + subtreeSize + ")");
+		}
+		
+		BinarySearchTreeADTImpl<T> node = this;
+		
+		while(true) {
 			
-			while(nodeQueue.isEmpty() == false) {
+			int leftSize = node.getLeftBST().subtreeSize;
+			
+			if(k < leftSize) {
 				
+				node = node.getLeftBST();
 				
-					
-					BinarySearchTreeADTImpl<T> elem = nodeQueue.get(0);
-					
-					nodeQueue.remove(0);
-					elem.setTag("width", pos);
-					pos++;
-					
-					if(elem.getLeftBST().isEmpty() != true) {
-						
-						nodeQueue.addLast(elem.getLeftBST());
-					}
-					
-					if(elem.getRightBST().isEmpty() != true) {
-						
-						nodeQueue.addLast(elem.getRightBST());
-					}
+			}else if(k == leftSize) {
+				
+				return node.content;
 				
+			}else {
+				
+				k -= leftSize + 1;
+				node = node.getRightBST();
 			}
-			
-			
 		}
 	}
 	
-	
-	/**	
-	 * Devuelve un iterador que recorre los elementos del arbol en inorden (de menor a mayor)
-	 * 
-	 * Por ejemplo, con el árbol
-	 * 
-	 * 		{50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
-	 * 
-	 * y devolvería el iterador que recorrería los ndos en el orden: 10, 30, 40, 50, 60, 80
+	/**
+	 * Cuenta los elementos del árbol en el intervalo cerrado [lo, hi].
 	 * 
-	 *rama izq raiz y derech
+	 * Cuesta lo que la altura del árbol.
 	 * 
-	 * @return iterador para el recorrido inorden o ascendente
+	 * @param lo límite inferior, incluido.
+	 * @param hi límite superior, incluido.
+	 * @return número de elementos e con lo &lt;= e &lt;= hi.
 	 */
+	public int countRange(T lo, T hi) {
+		
+		if(lo.compareTo(hi) > 0) {
+			
+			return 0;
+		}
+		
+		return countBelow(hi, true) - countBelow(lo, false);
+	}
 	
-	private class IteratorInorden implements Iterator<T> {
+	/**
+	 * Cuenta los elementos menores (o menores o iguales) que el dado.
+	 */
+	private int countBelow(T element, boolean inclusive) {
 		
-		private BinarySearchTreeADTImpl<T> actual;
-		Stack<BinarySearchTreeADTImpl<T>> nodesList;
+		BinarySearchTreeADTImpl<T> node = this;
+		int count = 0;
 		
-		public IteratorInorden(BinarySearchTreeADTImpl<T> raiz) {
+		while(node.isEmpty() == false) {
 			
-			actual = raiz;
-			nodesList = new Stack<BinarySearchTreeADTImpl<T>>();
+			int cmp = node.content.compareTo(element);
 			
-			while(actual.isEmpty() == false) {
+			if(cmp < 0 || (cmp == 0 && inclusive == true)) { //la raíz y su izquierda cuentan
 				
-				nodesList.push(actual);
-				actual = actual.getLeftBST();
+				count += node.getLeftBST().subtreeSize + 1;
+				node = node.getRightBST();
+				
+			}else {
+				
+				node = node.getLeftBST();
 			}
-			
 		}
 		
-		@Override
-		public boolean hasNext() {
+		return count;
+	}
+	
+	/**
+	 * Devuelve el sub-árbol indicado. (para tests)
+	 * path será el camino para obtener el sub-arbol. Está formado por 0 y 1.
+	 * Si se codifica "bajar por la izquierda" como "0" y
+	 * "bajar por la derecha" como "1", el camino desde un 
+	 * nodo N hasta un nodo M (en uno de sus sub-árboles) será la
+	 * cadena de 0s y 1s que indica cómo llegar desde N hasta M.
+     *
+     * Se define también el camino vacío desde un nodo N hasta
+     * él mismo, como cadena vacía.
+	 * 
+	 * Si el subarbol no existe lanzará la excepción NoSuchElementException.
+	 * 
+	 * @param path
+	 * @return
+	 * @throws NoSuchElementException si el subarbol no existe
+	 */
+	public BinarySearchTreeADTImpl<T> getSubtreeWithPath(String path) {
+		
+		if(isEmpty() == true) {
 			
-			boolean hasNext = false;
+			throw new NoSuchElementException();
 			
-			if(nodesList.isEmpty() == false) {
-				
-				hasNext = true;
-			}
+		}else if(path == null || path.isEmpty() == true){
+			
+			return this;
 			
-			return hasNext;
 		}
 		
-		@Override
-		public T next() {
-			
-			T e = null;
+		BinarySearchTreeADTImpl<T> node = this;
+		
+		for(int i = 0; i < path.length(); i++) {
 			
-			if(hasNext() == false) {
+			if(path.charAt(i) == '1') {
 				
-				throw new NoSuchElementException();
+				node = node.getRightBST();
 				
 			}else {
 				
-				BinarySearchTreeADTImpl<T> aux = nodesList.pop();
-				e = aux.content;
+				node = node.getLeftBST();
+			}
+			
+			if(node.isEmpty() == true) {
 				
-				if(aux.getRightBST().isEmpty() == false) {
-					
-					aux = aux.getRightBST();
-					
-					while(aux.isEmpty() == false) {
-						
-						nodesList.push(aux);
-						aux = aux.getLeftBST();
-					}
-				}
+				throw new NoSuchElementException();
 			}
-			return e;
 		}
 		
-		@Override  
-		public void remove() {
+		return node;
+	}
+	
+	/**
+	 * Como {@link #getSubtreeWithPath(String)}, con el camino empaquetado
+	 * en bits: el paso i-ésimo es el bit i (empezando por el menos
+	 * significativo), 0 para bajar por la izquierda y 1 por la derecha.
+	 * Así, el camino "011" es getSubtreeWithPath(0b110, 3).
+	 * 
+	 * Si se activó la caché ({@link #enablePathCache(int)}) y el camino ya
+	 * se resolvió sin cambios posteriores en el árbol, se devuelve sin
+	 * recorrerlo.
+	 * 
+	 * @param path pasos del camino.
+	 * @param length número de pasos, entre 0 y 64.
+	 * @throws NoSuchElementException si el subarbol no existe
+	 */
+	public BinarySearchTreeADTImpl<T> getSubtreeWithPath(long path, int length) {
+		
+		if(length < 0 || length > Long.SIZE) {
 			
-			throw new UnsupportedOperationException();
+			throw new IllegalArgumentException("un camino de bits tiene entre 0 y 64 pasos");
 		}
-		       
 		
-	};
-	
-	
-	
-	public Iterator<T> iteratorInorden() {
+		if(isEmpty() == true) {
+			
+			throw new NoSuchElementException();
+		}
 		
-		return new IteratorInorden(this);
-	}	
+		//	Los bits de más no son parte del camino ni de la clave en la caché
+		if(length < Long.SIZE) {
+			
+			path &= (1L << length) - 1;
+		}
+		
+		PathCache<T> cache = pathCache;
+		
+		if(cache == null) {
+			
+			return walkPath(path, length);
+		}
+		
+		if(cache.stale == true) {
+			
+			cache.clear();
+		}
+		
+		BinarySearchTreeADTImpl<T> node = cache.get(path, length);
+		
+		if(node == null) {
+			
+			node = walkPath(path, length);
+			cache.put(path, length, node);
+		}
+		
+		return node;
+	}
+	
+	/**
+	 * Como {@link #getSubtreeWithPath(long, int)}, con el camino en los
+	 * primeros length bits de path (que puede tener más de 64 pasos).
+	 * 
+	 * @throws NoSuchElementException si el subarbol no existe
+	 */
+	public BinarySearchTreeADTImpl<T> getSubtreeWithPath(BitSet path, int length) {
+		
+		if(length < 0) {
+			
+			throw new IllegalArgumentException("la longitud del camino no puede ser negativa");
+		}
+		
+		if(length <= Long.SIZE) {
+			
+			long bits = 0;
+			
+			for(int i = path.nextSetBit(0); i >= 0 && i < length; i = path.nextSetBit(i + 1)) {
+				
+				bits |= 1L << i;
+			}
+			
+			return getSubtreeWithPath(bits, length);
+		}
+		
+		if(isEmpty() == true) {
+			
+			throw new NoSuchElementException();
+		}
+		
+		BinarySearchTreeADTImpl<T> node = this;
+		
+		for(int i = 0; i < length; i++) {
+			
+			node = path.get(i) ? node.getRightBST() : node.getLeftBST();
+			
+			if(node.isEmpty() == true) {
+				
+				throw new NoSuchElementException();
+			}
+		}
+		
+		return node;
+	}
+	
+	private BinarySearchTreeADTImpl<T> walkPath(long path, int length) {
+		
+		BinarySearchTreeADTImpl<T> node = this;
+		
+		for(int i = 0; i < length; i++) {
+			
+			node = (path & 1L << i) != 0 ? node.getRightBST() : node.getLeftBST();
+			
+			if(node.isEmpty() == true) {
+				
+				throw new NoSuchElementException();
+			}
+		}
+		
+		return node;
+	}
+	
+	/**
+	 * Activa una caché de como mucho capacity caminos para
+	 * {@link #getSubtreeWithPath(long, int)} (y la versión con BitSet) sobre
+	 * este nodo. Se vacía sola cuando cambia la estructura del árbol con
+	 * insert(), withdraw() o bulkLoad() sobre este mismo nodo; los cambios
+	 * hechos a través de un sub-árbol no se detectan, y tras ellos hay que
+	 * llamar a {@link #clearPathCache()}.
+	 * 
+	 * @param capacity número de caminos, se redondea a potencia de dos.
+	 */
+	public void enablePathCache(int capacity) {
+		
+		if(capacity < 1) {
+			
+			throw new IllegalArgumentException("la caché necesita sitio para al menos un camino");
+		}
+		
+		pathCache = new PathCache<T>(capacity);
+	}
+	
+	/**
+	 * Vacía la caché de caminos, si está activada.
+	 */
+	public void clearPathCache() {
+		
+		if(pathCache != null) {
+			
+			pathCache.clear();
+		}
+	}
+	
+	/**
+	 * Avisa de un cambio de estructura hecho a través de este nodo; la
+	 * caché de caminos, si la hay, se vaciará antes de volver a usarse.
+	 */
+	protected final void pathsChanged() {
+		
+		if(pathCache != null) {
+			
+			pathCache.stale = true;
+		}
+	}
+	
+	/**
+	 * Desactiva la caché de caminos.
+	 */
+	public void disablePathCache() {
+		pathCache = null;
+	}
+	
+	/**
+	 * Caché de correspondencia directa: cada camino sólo puede estar en una
+	 * posición, que se sobrescribe si otro camino cae en ella.
+	 */
+	private static final class PathCache<T extends Comparable<? super T>> {
+		
+		private final long[] paths;
+		private final int[] lengths;
+		private final BinarySearchTreeADTImpl<T>[] nodes;
+		private final int mask;
+		
+		//	Si cambió la estructura del árbol desde que se llenó
+		boolean stale;
+		
+		PathCache(int capacity) {
+			
+			int size = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+			
+			if(size < capacity) {
+				
+				size <<= 1;
+			}
+			
+			this.paths = new long[size];
+			this.lengths = new int[size];
+			this.nodes = newArray(size);
+			this.mask = size - 1;
+		}
+		
+		private int slot(long path, int length) {
+			
+			long h = (path ^ length * 0x9E3779B97F4A7C15L) * 0xC2B2AE3D27D4EB4FL;
+			
+			return (int) (h ^ h >>> 32) & mask;
+		}
+		
+		BinarySearchTreeADTImpl<T> get(long path, int length) {
+			
+			int i = slot(path, length);
+			
+			return nodes[i] != null && paths[i] == path && lengths[i] == length ? nodes[i] : null;
+		}
+		
+		void put(long path, int length, BinarySearchTreeADTImpl<T> node) {
+			
+			int i = slot(path, length);
+			
+			paths[i] = path;
+			lengths[i] = length;
+			nodes[i] = node;
+		}
+		
+		void clear() {
+			
+			Arrays.fill(nodes, null);
+			stale = false;
+		}
+	}
+	
+	/**
+	 * Acumula en orden descendente, una lista con los pares 'padre-hijo' en este árbol.
+	 * 
+	 * Por ejemplo, sea un árbol "A":
+	 * 
+	 * {10, {5, {2, ∅, ∅}, ∅}, {20, ∅, {30, ∅, ∅}}}
+	 * 
+     * 10
+     * |  5
+     * |  |  2
+     * |  |  |  ∅
+     * |  |  |  ∅
+     *
+     * |  |  ∅
+     * |  20
+     * |  |  ∅
+     * |  |  30
+     * |  |  |  ∅
+     * |  |  |  ∅
+     * 
+	 * el resultado sería una lista de cadenas:
+	 * 
+	 * 	[(20,30), (10,20), (10,5), (5,2)]
+	 * 
+	 * y además quedaría etiquetado como:
+	 * 
+	 *  {10 [(descend, 3)], 
+	 *       {5 [(descend, 4)], {2 [(descend, 5)], ∅, ∅}, ∅}, 
+	 *       {20 [(descend, 2)], ∅, {30 [(descend, 1)], ∅, ∅}}}
+	 * 
+	 * Cada par se escribe como "(padre, hijo)"; para no crear esas cadenas,
+	 * {@link #parentChildPairsTagDescend(BiConsumer)}.
+	 * 
+	 * @param buffer lista con el resultado.
+	 */
+	public void parentChildPairsTagDescend(List<String> buffer) {
+		parentChildPairsTagDescend((parent, child) -> buffer.add("(" + parent + ", " + child + ")"));
+	}
+	
+	/**
+	 * Como {@link #parentChildPairsTagDescend(List)}, pero entregando cada
+	 * par (padre, hijo), en el mismo orden, a pairs.
+	 * 
+	 * Es un recorrido en inorden inverso (derecha, raíz, izquierda) con
+	 * {@link TreeTraversal}, sin recursividad; no crea nada por cada par.
+	 * Las etiquetas "descend" siguen siendo Integer.
+	 * 
+	 * @param pairs recibe cada par (padre, hijo).
+	 */
+	public void parentChildPairsTagDescend(BiConsumer<? super T, ? super T> pairs) {
+		
+		int[] i = { 0 };
+		
+		TreeTraversal.traverse(this, Order.REVERSE_INORDER, (node, depth, path) -> {
+			
+			i[0]++;
+			node.setTag("descend", i[0]);
+			
+			TreeADT<T> right = node.getSubtree(1);
+			TreeADT<T> left = node.getSubtree(0);
+			
+			if(right.isEmpty() != true) {
+				
+				pairs.accept(node.getContent(), right.getContent());
+			}
+			
+			if(left.isEmpty() != true) {
+				
+				pairs.accept(node.getContent(), left.getContent());
+			}
+			
+			return Action.CONTINUE;
+		});
+	}
+	
+	
+	/**
+	 * Importante: Solamente se debe recorrer el árbol una vez
+	 * 
+	 * Comprueba si los elementos de la lista coinciden con algún camino desde la raiz.
+	 * Además, si existe algún camino que coincida con los elementos de la lista, los etiqueta en el árbol,
+	 * numerandolos empezando por la raiz como 1.
+	 * 
+	 * Por ejemplo, el árbol
+	 * 
+	 * {50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * 
+	 * si path = [50, 30, 10]
+	 * 
+	 * devolvería true y el árbol quedaría así etiquetado:
+	 * 
+	 * {50 [(path, 1)], {30 [(path, 2)], {10 [(path, 3)], ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * 
+	 * Para el mismo árbol, si path es [50, 40]  devolvería false y el árbol no quedaría así etiquetado:
+	 * {50 [(path, 1)], {30, {10, ∅, ∅}, {40 [(path, 2)], ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * 
+	 * Para el mismo árbol, si path es [50, 80]  devolvería true y el árbol  se etiqueta:
+	 * {50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * 
+	 * 
+	 * @return  true si los elementos de la lista coinciden con algún camino desde la raiz,  falso si no es así
+	 */
+	
+	public boolean isPathIn(List<T> path) {
+		
+		if(isEmpty() == true || path.isEmpty() == true) {
+			
+			return false;
+		}
+		
+		//	En preorden, podando cada nodo que no coincide con su posición en
+		//	la lista: en un árbol de búsqueda sólo puede coincidir uno de los
+		//	hijos, así que se recorre un único camino
+		TreeADT<T> last = TreeTraversal.traverse(this, Order.PREORDER, (node, depth, p) -> {
+			
+			if(path.get(depth).equals(node.getContent()) == false) {
+				
+				return Action.PRUNE;
+			}
+			
+			if(depth + 1 == path.size()) {
+				
+				//	Encontrado: se numeran los nodos del camino desde la raíz
+				for (int i = 0; i <= depth; i++) {
+					
+					p.node(i).setTag("path", i + 1);
+				}
+				
+				return Action.STOP;
+			}
+			
+			return Action.CONTINUE;
+		});
+		
+		return last != null;
+	}
+
+	/**
+	 * 
+	 * Etiqueta cada nodo con su posición en el recorrido en anchura, con la etiqueta "width"
+	 * 
+	 *  Por ejemplo, el árbol
+	 * 
+	 * {50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * 
+	 *  queda etiquetado como 
+	 * 
+	 *   {50 [(width, 1)], 
+                 {30 [(width, 2)], {10 [(width, 4)], ∅, ∅},{40 [(width, 5)], ∅, ∅}},
+                 {80 [(width, 3)], {60 [(width, 6)], ∅, ∅}, ∅}}
+	 * 
+
+	 */	
+	public void tagWidth(){
+		new LevelOrder<T>(this).forEach((node, level, position) -> node.setTag("width", position));
+	}
+	
+	/**
+	 * Como {@link #tagWidth()}, pero etiquetando en paralelo en pool los
+	 * niveles más anchos.
+	 * 
+	 * @return anchura de cada nivel del árbol
+	 */
+	public LevelOrder.Stats tagWidth(ForkJoinPool pool){
+		return new LevelOrder<T>(this).parallel(pool).forEach((node, level, position) -> node.setTag("width", position));
+	}
+	
+	
+	/**	
+	 * Devuelve un iterador que recorre los elementos del arbol en inorden (de menor a mayor)
+	 * 
+	 * Por ejemplo, con el árbol
+	 * 
+	 * 		{50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * 
+	 * y devolvería el iterador que recorrería los ndos en el orden: 10, 30, 40, 50, 60, 80
+	 * 
+	 *rama izq raiz y derech
+	 * 
+	 * @return iterador para el recorrido inorden o ascendente
+	 */
+	
+	private class IteratorInorden implements Iterator<T> {
+		
+		//	Pila de nodos pendientes en un array propio (sin sincronizar, a
+		//	diferencia de java.util.Stack). Con la altura del árbol, que está
+		//	en la raíz, nunca hace falta ampliarlo.
+		private BinarySearchTreeADTImpl<T>[] nodesList;
+		private int top;
+		
+		public IteratorInorden(BinarySearchTreeADTImpl<T> raiz) {
+			
+			nodesList = newArray(Math.max(raiz.subtreeHeight, 1));
+			top = 0;
+			
+			pushLeftPath(raiz);
+		}
+		
+		/**
+		 * Apila el nodo dado y todos los que se alcanzan bajando por la izquierda.
+		 */
+		private void pushLeftPath(BinarySearchTreeADTImpl<T> actual) {
+			
+			//	content == null marca los vacíos, sin más llamadas
+			while(actual.content != null) {
+				
+				if(top == nodesList.length) { //sólo si el árbol cambió tras crear el iterador
+					
+					nodesList = Arrays.copyOf(nodesList, 2 * nodesList.length);
+				}
+				
+				nodesList[top++] = actual;
+				actual = actual.getLeftBST();
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			
+			return top > 0;
+		}
+		
+		@Override
+		public T next() {
+			
+			if(top == 0) {
+				
+				throw new NoSuchElementException();
+			}
+			
+			BinarySearchTreeADTImpl<T> aux = nodesList[--top];
+			
+			pushLeftPath(aux.getRightBST());
+			
+			return aux.content;
+		}
+		
+		@Override  
+		public void remove() {
+			
+			throw new UnsupportedOperationException();
+		}
+		       
+		
+	};
+	
+	
+	
+	public Iterator<T> iteratorInorden() {
+		
+		return new IteratorInorden(this);
+	}	
+	
+	/**
+	 * Recorre los elementos en inorden (de menor a mayor) con el método de
+	 * Morris, sin pila ni ninguna otra memoria adicional.
+	 * 
+	 * Durante el recorrido se enlaza temporalmente el mayor de los menores
+	 * de cada nodo con el propio nodo (en lugar del vacío a su derecha),
+	 * y el enlace se deshace al volver a pasar por él. Por tanto, mientras
+	 * dura el recorrido nadie debe modificar ni recorrer el árbol, ni
+	 * siquiera la acción.
+	 * 
+	 * Si la acción lanza una excepción, se termina igualmente el recorrido
+	 * (sin más llamadas a la acción) para dejar el árbol como estaba, y
+	 * después se relanza.
+	 * 
+	 * @param action acción a aplicar a cada elemento, en orden.
+	 */
+	public void forEachInordenMorris(Consumer<? super T> action) {
+		
+		BinarySearchTreeADTImpl<T> current = this;
+		RuntimeException failure = null;
+		
+		while(current.content != null) {
+			
+			BinarySearchTreeADTImpl<T> left = current.getLeftBST();
+			
+			if(left.content == null) { //sin izquierda, toca la raíz y bajar por la derecha
+				
+				if(failure == null) {
+					
+					try {
+						action.accept(current.content);
+					}catch(RuntimeException e) {
+						failure = e;
+					}
+				}
+				current = current.getRightBST();
+				
+			}else {
+				
+				BinarySearchTreeADTImpl<T> pred = left;
+				
+				while(pred.rightSubtree.content != null && pred.rightSubtree != current) {
+					
+					pred = pred.getRightBST();
+				}
+				
+				if(pred.rightSubtree != current) { //primera vez: enlaza y baja por la izquierda
+					
+					pred.setRightBST(current);
+					current = left;
+					
+				}else { //segunda vez: la izquierda ya está, deshace el enlace
+					
+					pred.setRightBST(emptyBST());
+					
+					if(failure == null) {
+						
+						try {
+							action.accept(current.content);
+						}catch(RuntimeException e) {
+							failure = e;
+						}
+					}
+					current = current.getRightBST();
+				}
+			}
+		}
+		
+		if(failure != null) {
+			
+			throw failure;
+		}
+	}
+	
+	/**
+	 * Spliterator sobre las posiciones [from, to) del recorrido inorden.
+	 * 
+	 * Gracias al tamaño guardado en cada nodo, dividir es sólo partir el
+	 * intervalo de posiciones por la mitad, sin recorrer nada, y cada
+	 * mitad sabe exactamente cuántos elementos tiene. La pila se construye
+	 * al empezar a recorrer, bajando una vez desde la raíz hasta la
+	 * posición "from" (como select()).
+	 */
+	private static class TreeSpliterator<E extends Comparable<? super E>> implements Spliterator<E> {
+		
+		private final BinarySearchTreeADTImpl<E> raiz;
+		private int from;
+		private int to;
+		
+		//	Pila de nodos pendientes, null hasta que se empieza a recorrer
+		private BinarySearchTreeADTImpl<E>[] pending;
+		private int top;
+		
+		TreeSpliterator(BinarySearchTreeADTImpl<E> raiz, int from, int to) {
+			
+			this.raiz = raiz;
+			this.from = from;
+			this.to = to;
+		}
+		
+		/**
+		 * Apila el camino desde la raíz hasta el elemento en la posición "from".
+		 */
+		private void seek() {
+			
+			pending = newArray(Math.max(raiz.subtreeHeight, 1));
+			top = 0;
+			
+			BinarySearchTreeADTImpl<E> node = raiz;
+			int k = from;
+			
+			while(node.content != null) {
+				
+				int leftSize = node.getLeftBST().subtreeSize;
+				
+				if(k < leftSize) {
+					
+					pending[top++] = node;
+					node = node.getLeftBST();
+					
+				}else if(k == leftSize) {
+					
+					pending[top++] = node;
+					break;
+					
+				}else {
+					
+					k -= leftSize + 1;
+					node = node.getRightBST();
+				}
+			}
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			
+			if(from >= to) {
+				
+				return false;
+			}
+			
+			if(pending == null) {
+				
+				seek();
+			}
+			
+			BinarySearchTreeADTImpl<E> node = pending[--top];
+			BinarySearchTreeADTImpl<E> aux = node.getRightBST();
+			
+			while(aux.content != null) {
+				
+				pending[top++] = aux;
+				aux = aux.getLeftBST();
+			}
+			
+			from++;
+			action.accept(node.content);
+			
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			
+			while(tryAdvance(action)) {
+			}
+		}
+		
+		/**
+		 * Cede la primera mitad de las posiciones que quedan; una vez
+		 * empezado el recorrido ya no se divide.
+		 */
+		@Override
+		public Spliterator<E> trySplit() {
+			
+			if(pending != null || to - from < 2) {
+				
+				return null;
+			}
+			
+			int mid = (from + to) >>> 1;
+			Spliterator<E> prefix = new TreeSpliterator<E>(raiz, from, mid);
+			from = mid;
+			
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			
+			return to - from;
+		}
+		
+		@Override
+		public int characteristics() {
+			
+			return ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | NONNULL;
+		}
+		
+		/**
+		 * Orden natural de los elementos.
+		 */
+		@Override
+		public Comparator<? super E> getComparator() {
+			
+			return null;
+		}
+	}
+	
+	/**
+	 * Devuelve un Spliterator sobre los elementos en orden ascendente, que
+	 * se divide en partes de tamaño exacto. El árbol no debe cambiar
+	 * mientras se usa.
+	 * 
+	 * @return spliterator ORDERED, SORTED, DISTINCT, SIZED y SUBSIZED.
+	 */
+	public Spliterator<T> spliterator() {
+		
+		return new TreeSpliterator<T>(this, 0, subtreeSize);
+	}
+	
+	/**
+	 * Devuelve un stream secuencial con los elementos en orden ascendente.
+	 * 
+	 * @return stream de los elementos.
+	 */
+	public Stream<T> stream() {
+		
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Devuelve un stream paralelo con los elementos en orden ascendente; se
+	 * reparte entre hilos partiendo el árbol por posiciones.
+	 * 
+	 * @return stream paralelo de los elementos.
+	 */
+	public Stream<T> parallelStream() {
+		
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Iterador ordenado sobre un rango [lo, hi) del árbol, ascendente o
+	 * descendente.
+	 * 
+	 * Al crearse se sitúa en el primer elemento del rango bajando una sola
+	 * vez desde la raíz, y en la pila sólo guarda los nodos de ese camino
+	 * que quedan pendientes; termina en cuanto sale del rango.
+	 */
+	private class IteratorRange implements Iterator<T> {
+		
+		private final T lo;
+		private final T hi;
+		private final boolean descending;
+		
+		//	Pila en array, como en IteratorInorden
+		private BinarySearchTreeADTImpl<T>[] pending;
+		private int top;
+		
+		public IteratorRange(BinarySearchTreeADTImpl<T> raiz, T lo, T hi, boolean descending) {
+			
+			this.lo = lo;
+			this.hi = hi;
+			this.descending = descending;
+			this.pending = newArray(Math.max(raiz.subtreeHeight, 1));
+			this.top = 0;
+			
+			BinarySearchTreeADTImpl<T> node = raiz;
+			
+			while(node.content != null) {
+				
+				if(descending == false) {
+					
+					if(lo == null || node.content.compareTo(lo) >= 0) { //dentro por abajo, el primero está a su izquierda o es él
+						
+						push(node);
+						node = node.getLeftBST();
+						
+					}else {
+						
+						node = node.getRightBST();
+					}
+					
+				}else {
+					
+					if(hi == null || node.content.compareTo(hi) < 0) { //dentro por arriba, el primero está a su derecha o es él
+						
+						push(node);
+						node = node.getRightBST();
+						
+					}else {
+						
+						node = node.getLeftBST();
+					}
+				}
+			}
+			
+			dropIfOutOfRange();
+		}
+		
+		private void push(BinarySearchTreeADTImpl<T> node) {
+			
+			if(top == pending.length) { //sólo si el árbol cambió tras crear el iterador
+				
+				pending = Arrays.copyOf(pending, 2 * pending.length);
+			}
+			
+			pending[top++] = node;
+		}
+		
+		/**
+		 * Si el siguiente elemento ya está fuera del rango, no hay más.
+		 */
+		private void dropIfOutOfRange() {
+			
+			if(top > 0) {
+				
+				T next = pending[top - 1].content;
+				
+				if((descending == false && hi != null && next.compareTo(hi) >= 0)
+						|| (descending == true && lo != null && next.compareTo(lo) < 0)) {
+					
+					top = 0;
+				}
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			
+			return top > 0;
+		}
+		
+		@Override
+		public T next() {
+			
+			if(top == 0) {
+				
+				throw new NoSuchElementException();
+			}
+			
+			BinarySearchTreeADTImpl<T> node = pending[--top];
+			T e = node.content;
+			
+			//	El siguiente está en el extremo más cercano del otro sub-árbol
+			BinarySearchTreeADTImpl<T> aux = descending ? node.getLeftBST() : node.getRightBST();
+			
+			while(aux.content != null) {
+				
+				push(aux);
+				aux = descending ? aux.getRightBST() : aux.getLeftBST();
+			}
+			
+			dropIfOutOfRange();
+			
+			return e;
+		}
+		
+		@Override
+		public void remove() {
+			
+			throw new UnsupportedOperationException();
+		}
+	}
+	
+	/**
+	 * Devuelve un iterador ascendente sobre los elementos e con lo &lt;= e &lt; hi.
+	 * 
+	 * Por ejemplo, con el árbol
+	 * 
+	 * 		{50, {30, {10, ∅, ∅}, {40, ∅, ∅}}, {80, {60, ∅, ∅}, ∅}}
+	 * 
+	 * iteratorRange(30, 60) recorrería 30, 40, 50.
+	 * 
+	 * @param lo límite inferior, incluido; null si no hay límite.
+	 * @param hi límite superior, excluido; null si no hay límite.
+	 * @return iterador ascendente sobre el rango.
+	 */
+	public Iterator<T> iteratorRange(T lo, T hi) {
+		
+		return new IteratorRange(this, lo, hi, false);
+	}
+	
+	/**
+	 * Devuelve un iterador que recorre los elementos de mayor a menor.
+	 * 
+	 * @return iterador descendente.
+	 */
+	public Iterator<T> descendingIterator() {
+		
+		return new IteratorRange(this, null, null, true);
+	}
+	
+	/**
+	 * Devuelve un iterador descendente sobre los elementos e con lo &lt;= e &lt; hi.
+	 * 
+	 * @param lo límite inferior, incluido; null si no hay límite.
+	 * @param hi límite superior, excluido; null si no hay límite.
+	 * @return iterador descendente sobre el rango.
+	 */
+	public Iterator<T> descendingIterator(T lo, T hi) {
+		
+		return new IteratorRange(this, lo, hi, true);
+	}
+	
+	/**
+	 * Mayor elemento menor o igual que el dado.
+	 * 
+	 * @return el elemento, o null si no hay ninguno.
+	 */
+	public T floor(T element) {
+		
+		return nearest(element, true, true);
+	}
+	
+	/**
+	 * Menor elemento mayor o igual que el dado.
+	 * 
+	 * @return el elemento, o null si no hay ninguno.
+	 */
+	public T ceiling(T element) {
+		
+		return nearest(element, false, true);
+	}
+	
+	/**
+	 * Menor elemento estrictamente mayor que el dado.
+	 * 
+	 * @return el elemento, o null si no hay ninguno.
+	 */
+	public T higher(T element) {
+		
+		return nearest(element, false, false);
+	}
+	
+	/**
+	 * Mayor elemento estrictamente menor que el dado.
+	 * 
+	 * @return el elemento, o null si no hay ninguno.
+	 */
+	public T lower(T element) {
+		
+		return nearest(element, true, false);
+	}
+	
+	/**
+	 * Busca, en un solo descenso, el elemento más cercano al dado por
+	 * debajo (below) o por encima, admitiendo o no el propio elemento.
+	 */
+	private T nearest(T element, boolean below, boolean inclusive) {
+		
+		BinarySearchTreeADTImpl<T> node = this;
+		T candidate = null;
+		
+		while(node.isEmpty() == false) {
+			
+			int cmp = node.content.compareTo(element);
+			
+			if(cmp == 0 && inclusive == true) {
+				
+				return node.content;
+			}
+			
+			if(below == true) {
+				
+				if(cmp < 0) { //sirve, pero puede haber uno más cercano a la derecha
+					
+					candidate = node.content;
+					node = node.getRightBST();
+					
+				}else {
+					
+					node = node.getLeftBST();
+				}
+				
+			}else {
+				
+				if(cmp > 0) { //sirve, pero puede haber uno más cercano a la izquierda
+					
+					candidate = node.content;
+					node = node.getLeftBST();
+					
+				}else {
+					
+					node = node.getRightBST();
+				}
+			}
+		}
+		
+		return candidate;
+	}
 	
 }
 
@@ -1,12 +1,18 @@
 package ule.edi.tree;
 
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -173,6 +179,47 @@ public class BinarySearchTreeADTTests {
 		Assert.assertEquals("∅", TE.toString());
 	}
 	
+	@Test
+	public void testBulkLoadSorted() {
+		
+		TE.bulkLoad(1, 2, 3, 4, 5, 6, 7);
+		Assert.assertEquals("{4, {2, {1, ∅, ∅}, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", TE.toString());
+	}
+	
+	@Test
+	public void testBulkLoadUnsortedRepeated() {
+		
+		Collection<Integer> a = new ArrayList<Integer>();
+		
+		a.add(30);
+		a.add(10);
+		a.add(20);
+		a.add(10);
+		a.add(40);
+		
+		TE.bulkLoad(a);
+		Assert.assertEquals("{20, {10, ∅, ∅}, {30, ∅, {40, ∅, ∅}}}", TE.toString());
+	}
+	
+	@Test
+	public void testBulkLoadNull() {
+		
+		T1234.bulkLoad(10, null, 5);
+		Assert.assertEquals("{1, ∅, {2, ∅, {3, ∅, {4, ∅, ∅}}}}", T1234.toString());
+	}
+	
+	@Test
+	public void testBulkLoadMergesAndKeepsTags() {
+		
+		T1234.getSubtreeWithPath("11").setTag("tag", 3);
+		T1234.bulkLoad(7, 5, 6, 2);
+		Assert.assertEquals("{4, {2, {1, ∅, ∅}, {3 [(tag, 3)], ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", T1234.toString());
+		
+		T1234.insert(8);
+		T1234.withdraw(2);
+		Assert.assertEquals("{4, {1, ∅, {3 [(tag, 3)], ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, {8, ∅, ∅}}}}", T1234.toString());
+	}
+	
 	@Test
 	public void testInsertElementEmpty() {
 		
@@ -198,6 +245,24 @@ public class BinarySearchTreeADTTests {
 	}
 	
 	
+	@Test
+	public void testEmptySubtreesAreShared() {
+		
+		Assert.assertSame(T1234.getSubtree(0), TC3.getSubtree(0).getSubtree(0).getSubtree(1));
+		Assert.assertSame(T4321.getSubtree(1), T4321.getSubtree(0).getSubtree(1));
+		Assert.assertNotSame(TE, new BinarySearchTreeADTImpl<Integer>());
+		
+		TC3.withdraw(10);
+		Assert.assertSame(T1234.getSubtree(0), TC3.getSubtree(0).getSubtree(0));
+		Assert.assertEquals("{50, {20, ∅, {30, ∅, ∅}}, {80, {70, ∅, ∅}, {90, ∅, ∅}}}", TC3.toString());
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testEmptySubtreeIsImmutable() {
+		
+		T1234.getSubtree(0).setTag("tag", 1);
+	}
+	
 	@Test(expected = NoSuchElementException.class)
 	public void testWithdrawElementEmpty() {
 		
@@ -330,6 +395,90 @@ public class BinarySearchTreeADTTests {
 		TE.getSubtreeWithPath("0");
 	}
 	
+	@Test
+	public void testGetSubtreeWithPathBits() {
+		
+		//	"" no tiene por qué ser la misma cadena literal
+		Assert.assertSame(T1234, T1234.getSubtreeWithPath(new String("")));
+		Assert.assertSame(T1234, T1234.getSubtreeWithPath(0L, 0));
+		
+		//	"011" es 0b110 con 3 pasos
+		Assert.assertSame(TC3.getSubtreeWithPath("01"), TC3.getSubtreeWithPath(0b10L, 2));
+		Assert.assertEquals(Integer.valueOf(70), TC3.getSubtreeWithPath(0b01L, 2).getContent());
+		Assert.assertEquals(Integer.valueOf(4), T1234.getSubtreeWithPath(0b111L, 3).getContent());
+		
+		BitSet bits = new BitSet();
+		bits.set(0);
+		Assert.assertEquals(Integer.valueOf(70), TC3.getSubtreeWithPath(bits, 2).getContent());
+		Assert.assertEquals(Integer.valueOf(20), TC3.getSubtreeWithPath(new BitSet(), 1).getContent());
+	}
+	
+	@Test(expected = NoSuchElementException.class)
+	public void testGetSubtreeWithPathBitsNotFound() {
+		
+		TC3.getSubtreeWithPath(0L, 3);
+	}
+	
+	@Test
+	public void testGetSubtreeWithPathLongBitSet() {
+		
+		int n = 100;
+		BitSet bits = new BitSet();
+		
+		for (int i = 0; i < n; i++) {
+			TE.insert(i);
+			bits.set(i);
+		}
+		
+		Assert.assertEquals(Integer.valueOf(n - 1), TE.getSubtreeWithPath(bits, n - 1).getContent());
+		Assert.assertEquals(Integer.valueOf(64), TE.getSubtreeWithPath(-1L, 64).getContent());
+	}
+	
+	@Test
+	public void testPathCacheInvalidated() {
+		
+		TC3.enablePathCache(4);
+		
+		BinarySearchTreeADTImpl<Integer> n = TC3.getSubtreeWithPath(0b01L, 2);
+		Assert.assertEquals(Integer.valueOf(70), n.getContent());
+		Assert.assertSame(n, TC3.getSubtreeWithPath(0b01L, 2));
+		
+		//	Quitar el 70 deja vacío ese camino
+		TC3.withdraw(70);
+		try {
+			TC3.getSubtreeWithPath(0b01L, 2);
+			Assert.fail();
+		} catch (NoSuchElementException e) {
+			//	bien, la caché se vació
+		}
+		
+		TC3.insert(75);
+		Assert.assertEquals(Integer.valueOf(75), TC3.getSubtreeWithPath(0b01L, 2).getContent());
+		
+		//	En un AVL las rotaciones también cambian los caminos
+		AVLTreeADTImpl<Integer> avl = new AVLTreeADTImpl<Integer>();
+		avl.enablePathCache(16);
+		avl.insert(1, 2);
+		Assert.assertEquals(Integer.valueOf(2), avl.getSubtreeWithPath(1L, 1).getContent());
+		avl.insert(3);
+		Assert.assertEquals(Integer.valueOf(3), avl.getSubtreeWithPath(1L, 1).getContent());
+		
+		avl.disablePathCache();
+		Assert.assertEquals(Integer.valueOf(1), avl.getSubtreeWithPath(0L, 1).getContent());
+	}
+	
+	@Test
+	public void testPathCacheIgnoresBitsPastLength() {
+		
+		TC3.enablePathCache(4);
+		
+		//	Sólo cuentan los dos primeros pasos: es el mismo camino "10"
+		BinarySearchTreeADTImpl<Integer> n = TC3.getSubtreeWithPath(0b01L, 2);
+		Assert.assertSame(n, TC3.getSubtreeWithPath(0b1101L, 2));
+		Assert.assertSame(n, TC3.getSubtreeWithPath(-1L << 2 | 0b01L, 2));
+		Assert.assertSame(TC3, TC3.getSubtreeWithPath(-1L, 0));
+	}
+	
 	@Test
 	public void testGetSubtreeWithPathNull() {
 		
@@ -349,6 +498,232 @@ public class BinarySearchTreeADTTests {
 			
 		}
 	
+		@Test
+		public void testTagDescendPairsSink() {
+			List<Integer> parents = new ArrayList<Integer>();
+			List<Integer> children = new ArrayList<Integer>();
+			TC3.parentChildPairsTagDescend((p, c) -> {
+				parents.add(p);
+				children.add(c);
+			});
+			Assert.assertEquals("[80, 80, 50, 50, 20, 20]", parents.toString());
+			Assert.assertEquals("[90, 70, 80, 20, 30, 10]", children.toString());
+			Assert.assertEquals(4, TC3.getTag("descend"));
+			
+			TE.parentChildPairsTagDescend((p, c) -> Assert.fail());
+		}
+	
+		/**
+		 * Deja en root la cadena 0, 1, ..., n-1 (todo a la derecha) en tiempo
+		 * lineal; con insert() ordenados costaría O(n²).
+		 */
+		private static void degenerateChain(BinarySearchTreeADTImpl<Integer> root, int n) {
+			
+			BinarySearchTreeADTImpl<Integer> below = null;
+			
+			for (int i = n - 1; i >= 0; i--) {
+				
+				BinarySearchTreeADTImpl<Integer> node = i == 0 ? root : new BinarySearchTreeADTImpl<Integer>();
+				node.becomeLeaf(i);
+				
+				if (below != null) {
+					node.setRightBST(below);
+					node.subtreeChanged();
+				}
+				
+				below = node;
+			}
+		}
+	
+		@Test
+		public void testDegenerateTreeNoStackOverflow() {
+			
+			int n = 100000;
+			StringBuilder path = new StringBuilder();
+			
+			degenerateChain(TE, n);
+			for (int i = 0; i < n - 1; i++) {
+				path.append('1');
+			}
+			Assert.assertEquals(Integer.valueOf(n - 1), TE.getSubtreeWithPath(path.toString()).getContent());
+			
+			List<String> lista = new ArrayList<String>();
+			TE.parentChildPairsTagDescend(lista);
+			Assert.assertEquals(n - 1, lista.size());
+			Assert.assertEquals("(" + (n - 2) + ", " + (n - 1) + ")", lista.get(0));
+			
+			Assert.assertEquals(n, TE.height());
+			
+			TE.withdraw(n - 1);
+			TE.withdraw(0);
+			Assert.assertEquals(n - 2, TE.height());
+			Assert.assertEquals(Integer.valueOf(1), TE.getContent());
+			Assert.assertEquals(Integer.valueOf(n - 2), TE.getSubtreeWithPath(path.substring(0, n - 3)).getContent());
+		}
+	
+		@Test
+		public void testDegenerateInsertNoStackOverflow() {
+			
+			//	Menos nodos que la cadena: aquí cada insert() recorre toda la rama
+			int n = 10000;
+			
+			for (int i = 0; i < n; i++) {
+				TE.insert(i);
+			}
+			TE.insert(n / 2);
+			
+			Assert.assertEquals(n, TE.size());
+			Assert.assertEquals(n, TE.height());
+			Assert.assertTrue(TE.contains(n - 1));
+			Assert.assertEquals(n - 1, TE.getSubtreeWithPath("1").size());
+			
+			TE.withdraw(n - 1);
+			TE.insert(-1);
+			Assert.assertEquals(n, TE.size());
+			Assert.assertEquals(n - 1, TE.height());
+			Assert.assertEquals(Integer.valueOf(-1), TE.getSubtreeWithPath("0").getContent());
+		}
+	
+		@Test
+		public void testInsertNullRejected() {
+			
+			try {
+				TE.insert((Integer) null);
+				Assert.fail();
+			} catch (NullPointerException e) {
+			}
+			
+			Assert.assertTrue(TE.isEmpty());
+			Assert.assertEquals(0, TE.size());
+			Assert.assertEquals(0, TE.height());
+		}
+	
+		@Test
+		public void testSizeFollowsInsertWithdraw() {
+			
+			Assert.assertEquals(0, TE.size());
+			Assert.assertEquals(4, T1234.size());
+			Assert.assertEquals(7, TC3.size());
+			
+			TC3.insert(20);
+			Assert.assertEquals(7, TC3.size());
+			TC3.insert(60);
+			Assert.assertEquals(8, TC3.size());
+			Assert.assertEquals(4, TC3.getSubtreeWithPath("1").size());
+			
+			TC3.withdraw(50);
+			Assert.assertEquals(7, TC3.size());
+			Assert.assertEquals(2, TC3.getSubtreeWithPath("0").size());
+			
+			T1234.withdraw(1, 2, 3, 4);
+			Assert.assertEquals(0, T1234.size());
+		}
+		
+		@Test
+		public void testCachedHeightAndDegree() {
+			
+			Assert.assertEquals(0, TE.height());
+			Assert.assertEquals(4, T1234.height());
+			Assert.assertEquals(3, TC3.height());
+			Assert.assertEquals(2, TC3.getDegree());
+			Assert.assertEquals(1, T1234.getDegree());
+			Assert.assertEquals(0, TE.getDegree());
+			
+			T1234.withdraw(4);
+			Assert.assertEquals(3, T1234.height());
+			T1234.withdraw(1);
+			Assert.assertEquals(2, T1234.height());
+			
+			TC3.insert(95, 99);
+			Assert.assertEquals(5, TC3.height());
+			Assert.assertEquals(4, TC3.getSubtreeWithPath("1").height());
+			TC3.withdraw(90);
+			Assert.assertEquals(4, TC3.height());
+			
+			TEx.bulkLoad(1, 2, 3);
+			Assert.assertEquals(3, TEx.height());
+		}
+		
+		@Test
+		public void testRankSelect() {
+			
+			TE.insert(50,30,10,40,80,60);
+			Assert.assertEquals(0, TE.rank(10));
+			Assert.assertEquals(2, TE.rank(40));
+			Assert.assertEquals(4, TE.rank(55));
+			Assert.assertEquals(6, TE.rank(90));
+			
+			for (int k = 0; k < TE.size(); k++) {
+				
+				Assert.assertEquals(k, TE.rank(TE.select(k)));
+			}
+			Assert.assertEquals(Integer.valueOf(60), TE.select(4));
+		}
+		
+		@Test(expected = IndexOutOfBoundsException.class)
+		public void testSelectOutOfRange() {
+			
+			T1234.select(4);
+		}
+		
+		@Test
+		public void testCountRange() {
+			
+			Assert.assertEquals(7, TC3.countRange(10, 90));
+			Assert.assertEquals(3, TC3.countRange(20, 50));
+			Assert.assertEquals(3, TC3.countRange(21, 70));
+			Assert.assertEquals(0, TC3.countRange(91, 100));
+			Assert.assertEquals(0, TC3.countRange(90, 10));
+		}
+	
+		@Test
+		public void testContains() {
+			
+			Assert.assertTrue(TC3.contains(70));
+			Assert.assertTrue(TC3.contains(50));
+			Assert.assertFalse(TC3.contains(60));
+			Assert.assertFalse(TE.contains(60));
+		}
+		
+		@Test
+		public void testContainsAllSorted() {
+			
+			Assert.assertTrue(TC3.containsAll(Arrays.asList(10, 30, 30, 50, 90)));
+			Assert.assertFalse(TC3.containsAll(Arrays.asList(10, 30, 60)));
+			Assert.assertTrue(TE.containsAll(new ArrayList<Integer>()));
+			Assert.assertFalse(TE.containsAll(Arrays.asList(1)));
+			
+			boolean[] found = new boolean[6];
+			Assert.assertEquals(3, TC3.containsEach(Arrays.asList(5, 20, 25, 70, 90, 95), found));
+			Assert.assertEquals("[false, true, false, true, true, false]", Arrays.toString(found));
+		}
+		
+		@Test
+		public void testContainsEachMatchesContains() {
+			
+			List<Integer> keys = new ArrayList<Integer>();
+			
+			for (int i = 0; i < 2000; i++) {
+				
+				TE.insert((i * 7919) % 10007);
+				keys.add(i * 3);
+			}
+			
+			boolean[] found = new boolean[keys.size()];
+			TE.containsEach(keys, found);
+			
+			for (int i = 0; i < keys.size(); i++) {
+				
+				Assert.assertEquals(TE.contains(keys.get(i)), found[i]);
+			}
+		}
+		
+		@Test(expected = IllegalArgumentException.class)
+		public void testContainsAllUnsorted() {
+			
+			TC3.containsAll(Arrays.asList(30, 10));
+		}
+		
 		@Test
 		public void testTagWidthOk() {
 			
@@ -406,8 +781,8 @@ public class BinarySearchTreeADTTests {
 
 		}
 		
-		 @Test
-			public void testInorderIterator() {
+		@Test
+		public void testInorderIterator() {
 			 	TE.insert(50,30,40,10,80,60);
 			 	
 				Iterator<Integer> i = TE.iteratorInorden();
@@ -427,16 +802,156 @@ public class BinarySearchTreeADTTests {
 			  
 		   }
 		  
-		   @Test(expected = NoSuchElementException.class)
-			public void testInorderIteratorException() {
+		@Test(expected = NoSuchElementException.class)
+		public void testInorderIteratorException() {
 				Iterator<Integer> i = TE.iteratorInorden();
 				Assert.assertFalse(i.hasNext());
 				i.next();
 			}
 		   
 		   
-		   @Test(expected = UnsupportedOperationException.class)
-			public void testForwardItRemove() {
+		@Test
+		public void testRangeIterator() {
+			 	TE.insert(50,30,40,10,80,60);
+			 	
+				List<Integer> rx = new ArrayList<Integer>();
+				Iterator<Integer> i = TE.iteratorRange(30, 60);
+				while (i.hasNext()) { rx.add(i.next()); }
+				Assert.assertEquals("[30, 40, 50]", rx.toString());
+				
+				rx.clear();
+				i = TE.iteratorRange(35, null);
+				while (i.hasNext()) { rx.add(i.next()); }
+				Assert.assertEquals("[40, 50, 60, 80]", rx.toString());
+				
+				Assert.assertFalse(TE.iteratorRange(81, 100).hasNext());
+				Assert.assertFalse(TE.iteratorRange(41, 50).hasNext());
+				Assert.assertTrue(TE.iteratorRange(1, 100).hasNext());
+			}
+		   
+		@Test
+		public void testDescendingIterator() {
+			 	TE.insert(50,30,40,10,80,60);
+			 	
+				List<Integer> rx = new ArrayList<Integer>();
+				Iterator<Integer> i = TE.descendingIterator();
+				while (i.hasNext()) { rx.add(i.next()); }
+				Assert.assertEquals("[80, 60, 50, 40, 30, 10]", rx.toString());
+				
+				rx.clear();
+				i = TE.descendingIterator(30, 60);
+				while (i.hasNext()) { rx.add(i.next()); }
+				Assert.assertEquals("[50, 40, 30]", rx.toString());
+				
+				Assert.assertTrue(TE.descendingIterator().hasNext());
+				Assert.assertFalse(TE.descendingIterator(0, 10).hasNext());
+			}
+		   
+		@Test
+		public void testInorderIteratorAfterChanges() {
+				
+				//	La pila se dimensiona con la altura inicial (3), pero la parte
+				//	aún no recorrida crece hasta altura 6
+				Iterator<Integer> i = TEx.iteratorInorden();
+				TEx.insert(25, 22, 21);
+				
+				List<Integer> rx = new ArrayList<Integer>();
+				while (i.hasNext()) { rx.add(i.next()); }
+				Assert.assertEquals("[5, 10, 20, 21, 22, 25, 30]", rx.toString());
+			}
+		   
+		@Test
+		public void testMorrisInorder() {
+				
+				final List<Integer> rx = new ArrayList<Integer>();
+				TV1.forEachInordenMorris(e -> rx.add(e));
+				Assert.assertEquals("[5, 6, 7, 10, 15]", rx.toString());
+				Assert.assertEquals("{10, {5, ∅, {7, {6, ∅, ∅}, ∅}}, {15, ∅, ∅}}", TV1.toString());
+				
+				rx.clear();
+				TE.forEachInordenMorris(e -> rx.add(e));
+				Assert.assertTrue(rx.isEmpty());
+			}
+		   
+		@Test
+		public void testMorrisInorderRestoresOnException() {
+				
+				try {
+					TC3.forEachInordenMorris(e -> { if (e == 30) { throw new IllegalStateException(); } });
+					Assert.fail();
+				} catch (IllegalStateException e) {
+					Assert.assertEquals("{50, {20, {10, ∅, ∅}, {30, ∅, ∅}}, {80, {70, ∅, ∅}, {90, ∅, ∅}}}", TC3.toString());
+				}
+			}
+		   
+		@Test
+		public void testStream() {
+				
+				Assert.assertEquals("[10, 20, 30, 50, 70, 80, 90]", TC3.stream().collect(Collectors.toList()).toString());
+				Assert.assertEquals(0, TE.stream().count());
+				Assert.assertEquals(Integer.valueOf(350), TC3.stream().reduce(0, Integer::sum));
+			}
+		   
+		@Test
+		public void testParallelStream() {
+				
+				for (int i = 0; i < 10000; i++) {
+					
+					TE.insert((i * 7919) % 10007);
+				}
+				
+				List<Integer> rx = TE.parallelStream().collect(Collectors.toList());
+				Assert.assertEquals(10000, rx.size());
+				
+				Iterator<Integer> i = TE.iteratorInorden();
+				for (Integer e : rx) {
+					Assert.assertEquals(i.next(), e);
+				}
+				Assert.assertEquals(TE.stream().mapToLong(e -> e).sum(), TE.parallelStream().mapToLong(e -> e).sum());
+			}
+		   
+		@Test
+		public void testSpliteratorSplitsExactly() {
+				
+				Spliterator<Integer> right = TC3.spliterator();
+				Assert.assertTrue(right.hasCharacteristics(Spliterator.SIZED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED));
+				
+				Spliterator<Integer> left = right.trySplit();
+				Assert.assertEquals(3, left.estimateSize());
+				Assert.assertEquals(4, right.estimateSize());
+				
+				List<Integer> rx = new ArrayList<Integer>();
+				left.forEachRemaining(rx::add);
+				right.tryAdvance(rx::add);
+				Assert.assertNull(right.trySplit());
+				right.forEachRemaining(rx::add);
+				Assert.assertEquals("[10, 20, 30, 50, 70, 80, 90]", rx.toString());
+			}
+		   
+		@Test(expected = NoSuchElementException.class)
+		public void testRangeIteratorException() {
+				Iterator<Integer> i = TC3.iteratorRange(91, null);
+				i.next();
+			}
+		   
+		@Test
+		public void testFloorCeilingHigherLower() {
+				
+				Assert.assertEquals(Integer.valueOf(30), TC3.floor(30));
+				Assert.assertEquals(Integer.valueOf(30), TC3.floor(45));
+				Assert.assertNull(TC3.floor(5));
+				Assert.assertEquals(Integer.valueOf(50), TC3.ceiling(45));
+				Assert.assertEquals(Integer.valueOf(50), TC3.ceiling(50));
+				Assert.assertNull(TC3.ceiling(95));
+				Assert.assertEquals(Integer.valueOf(70), TC3.higher(50));
+				Assert.assertNull(TC3.higher(90));
+				Assert.assertEquals(Integer.valueOf(30), TC3.lower(50));
+				Assert.assertNull(TC3.lower(10));
+				Assert.assertNull(TE.floor(10));
+			}
+		   
+		@Test(expected = UnsupportedOperationException.class)
+		public void testForwardItRemove() {
 				
 				TE.insert(20,30,39,37);
 				Iterator<Integer> i = TE.iteratorInorden();
@@ -444,6 +959,92 @@ public class BinarySearchTreeADTTests {
 			}
 		   
 	
-	}
+		@Test
+		public void testWriteToSameAsToString() throws IOException {
+				
+				TC3.setTag("b", 2);
+				TC3.setTag("a", 1);
+				StringBuilder sb = new StringBuilder();
+				TC3.writeTo(sb);
+				Assert.assertEquals("{50 [(a, 1), (b, 2)], {20, {10, ∅, ∅}, {30, ∅, ∅}}, {80, {70, ∅, ∅}, {90, ∅, ∅}}}", sb.toString());
+				Assert.assertEquals(sb.toString(), TC3.toString());
+				
+				sb = new StringBuilder();
+				TC3.render(sb, RenderOptions.DEFAULT);
+				Assert.assertEquals(TC3.render(), sb.toString());
+			}
+		   
+		@Test
+		public void testRenderLimits() throws IOException {
+				
+				TC3.setTag("b", 2);
+				TC3.setTag("a", 1);
+				TC3.setTag("c", 3);
+				
+				StringBuilder sb = new StringBuilder();
+				TC3.render(sb, RenderOptions.DEFAULT.maxDepth(1).maxTags(2));
+				Assert.assertEquals("50 [(a, 1), (b, 2), ...]\n|  20\n|  |  ...\n|  |  ...\n|  80\n|  |  ...\n|  |  ...\n", sb.toString());
+				
+				sb = new StringBuilder();
+				TC3.render(sb, RenderOptions.DEFAULT.maxNodes(3).maxTags(0));
+				Assert.assertEquals("50 [...]\n|  20\n|  |  10\n|  |  |  ∅\n|  |  |  ∅\n|  |  ...\n", sb.toString());
+			}
+		   
+		@Test
+		public void testWriteToDeepTree() throws IOException {
+				
+				for (int i = 0; i < 20000; i++) {
+					TE.insert(i);
+				}
+				StringBuilder sb = new StringBuilder();
+				TE.writeTo(sb);
+				Assert.assertTrue(sb.toString().startsWith("{0, ∅, {1, ∅, {2, ∅, "));
+				Assert.assertTrue(sb.toString().contains("{19998, ∅, {19999, ∅, ∅}}}"));
+				
+				sb = new StringBuilder();
+				TE.render(sb, RenderOptions.DEFAULT.maxDepth(2));
+				Assert.assertEquals("0\n|  ∅\n|  1\n|  |  ∅\n|  |  2\n|  |  |  ∅\n|  |  |  ...\n", sb.toString());
+			}
+		   
+	
+		@Test
+		public void testTagsLazyAndFilteredInPlace() {
+				
+				TE.insert(50, 20, 80);
+				Assert.assertTrue(TE.getTags().isEmpty());
+				Assert.assertNull(TE.getTag("a"));
+				
+				//	Más etiquetas de las que caben al principio
+				for (int i = 0; i < 6; i++) {
+					TE.setTag("t" + i, i);
+				}
+				TE.setTag("t2", "dos");
+				Assert.assertEquals(6, TE.getTags().size());
+				Assert.assertEquals("dos", TE.getTag("t2"));
+				Assert.assertEquals(5, TE.getTag("t5"));
+				
+				Map<String, Object> before = TE.getTags();
+				TE.filterTags("t1", "t2", "x");
+				Assert.assertSame(before, TE.getTags());
+				Assert.assertEquals(2, TE.getTags().size());
+				Assert.assertEquals(1, TE.getTag("t1"));
+				Assert.assertNull(TE.getTag("t0"));
+				
+				TE.filterTags("x");
+				Assert.assertTrue(TE.getTags().isEmpty());
+				Assert.assertEquals("{50, {20, ∅, ∅}, {80, ∅, ∅}}", TE.toString());
+			}
+		   
+		@Test
+		public void testTagsOfUntaggedNodeWritable() {
+				
+				TE.insert(1);
+				Assert.assertEquals("{1, ∅, ∅}", TE.toString());
+				TE.getTags().put("a", 1);
+				Assert.assertEquals(1, TE.getTag("a"));
+				Assert.assertEquals("{1 [(a, 1)], ∅, ∅}", TE.toString());
+			}
+		   
+}
 
 
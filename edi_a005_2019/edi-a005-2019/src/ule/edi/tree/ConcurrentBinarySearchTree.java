@@ -0,0 +1,484 @@
+package ule.edi.tree;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Árbol binario de búsqueda que admite el uso simultáneo desde varios hilos.
+ *
+ * Las consultas ({@link #contains(Comparable)} y el iterador) no usan
+ * cerrojos: sólo leen enlaces volátiles. Las modificaciones bloquean
+ * únicamente los nodos que tocan (el padre y, al eliminar, el propio
+ * nodo), de forma que hilos que trabajan en zonas distintas del árbol no
+ * se esperan entre sí.
+ *
+ * Para que las lecturas sin cerrojo sean seguras, los elementos nunca
+ * cambian de nodo:
+ *
+ * 		- Un nodo con como mucho un hijo se elimina enlazando su padre
+ * 		  directamente con ese hijo. El nodo eliminado conserva sus enlaces,
+ * 		  así que un lector que estuviera en él sigue su camino sin perderse.
+ *
+ * 		- Un nodo con dos hijos no se quita, sólo se marca como eliminado
+ * 		  (en lugar de sustituirlo por el mayor de sus menores, como hace
+ * 		  {@link BinarySearchTreeADTImpl}). Si se vuelve a insertar el
+ * 		  elemento, se reutiliza el nodo. En cuanto se elimina uno de sus
+ * 		  hijos se desengancha como los demás, así que sólo quedan
+ * 		  marcados los nodos que aún tienen dos hijos.
+ *
+ * Antes de cambiar un enlace, el hilo comprueba, con los cerrojos ya
+ * tomados, que los nodos siguen en el árbol y enlazados como los vio; si
+ * no, vuelve a empezar. Los cerrojos se toman siempre de padre a hijo,
+ * por lo que no hay interbloqueos.
+ *
+ * No se permiten elementos null.
+ *
+ * @param <T>
+ *            tipo de la información en cada nodo, comparable.
+ */
+public class ConcurrentBinarySearchTree<T extends Comparable<? super T>> implements Iterable<T> {
+
+	private static final class Node<E> {
+
+		final E key;
+
+		//	Eliminado lógicamente: el elemento ya no está en el árbol
+		volatile boolean deleted;
+
+		//	Desenganchado del árbol: ya no se puede modificar
+		volatile boolean removed;
+
+		volatile Node<E> left;
+		volatile Node<E> right;
+
+		final ReentrantLock lock = new ReentrantLock();
+
+		Node(E key) {
+			this.key = key;
+		}
+	}
+
+	//	Nodo cabecera, menor que cualquier elemento: la raíz es siempre
+	//	su hijo derecho, así que la raíz también tiene un padre que bloquear.
+	//
+	private final Node<T> head = new Node<T>(null);
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Árbol vacío
+	 */
+	public ConcurrentBinarySearchTree() {
+	}
+
+	/**
+	 * Número de elementos en el árbol; con modificaciones en curso es
+	 * sólo aproximado.
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	public boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	/**
+	 * Indica si el elemento está en el árbol, sin bloquear.
+	 *
+	 * @param element elemento a buscar.
+	 * @return <tt>true</tt> si el árbol contiene al elemento dado
+	 */
+	public boolean contains(T element) {
+
+		Node<T> node = head.right;
+
+		while(node != null) {
+
+			int cmp = element.compareTo(node.key);
+
+			if(cmp == 0) {
+
+				return node.deleted == false;
+			}
+
+			node = cmp < 0 ? node.left : node.right;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Inserta (como hoja) un nuevo elemento en el árbol.
+	 *
+	 * @param element valor a insertar, no null.
+	 * @return <tt>true</tt> si se insertó, <tt>false</tt> si ya estaba.
+	 */
+	public boolean insert(T element) {
+
+		if(element == null) {
+
+			throw new NullPointerException("no se permiten elementos null");
+		}
+
+		while(true) {
+
+			Node<T> parent = head;
+			Node<T> node = head.right;
+			boolean toLeft = false;
+
+			while(node != null) {
+
+				int cmp = element.compareTo(node.key);
+
+				if(cmp == 0) {
+
+					break;
+				}
+
+				parent = node;
+				toLeft = cmp < 0;
+				node = toLeft ? node.left : node.right;
+			}
+
+			if(node != null) { //ya hay un nodo para este elemento, quizá marcado como eliminado
+
+				node.lock.lock();
+
+				try {
+					if(node.removed == true) {
+
+						continue;
+					}
+
+					if(node.deleted == false) {
+
+						return false;
+					}
+
+					node.deleted = false;
+					size.incrementAndGet();
+					return true;
+
+				}finally {
+					node.lock.unlock();
+				}
+			}
+
+			parent.lock.lock();
+
+			try {
+				Node<T> current = toLeft ? parent.left : parent.right;
+
+				if(parent.removed == true || current != null) { //alguien cambió ese hueco, se repite
+
+					continue;
+				}
+
+				if(toLeft == true) {
+
+					parent.left = new Node<T>(element);
+
+				}else {
+
+					parent.right = new Node<T>(element);
+				}
+
+				size.incrementAndGet();
+				return true;
+
+			}finally {
+				parent.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Elimina un elemento del árbol.
+	 *
+	 * @param element valor a eliminar.
+	 * @return <tt>true</tt> si se eliminó, <tt>false</tt> si no estaba.
+	 */
+	public boolean withdraw(T element) {
+
+		while(true) {
+
+			Node<T> parent = head;
+			Node<T> node = head.right;
+			boolean toLeft = false;
+
+			while(node != null) {
+
+				int cmp = element.compareTo(node.key);
+
+				if(cmp == 0) {
+
+					break;
+				}
+
+				parent = node;
+				toLeft = cmp < 0;
+				node = toLeft ? node.left : node.right;
+			}
+
+			if(node == null || (node.deleted == true && node.removed == false)) {
+
+				return false;
+			}
+
+			//	Padre del nodo desenganchado, por si era un nodo marcado
+			Node<T> unlinkedFrom = null;
+
+			parent.lock.lock();
+
+			try {
+				node.lock.lock();
+
+				try {
+					Node<T> current = toLeft ? parent.left : parent.right;
+
+					if(parent.removed == true || node.removed == true || current != node) {
+
+						continue;
+					}
+
+					if(node.deleted == true) {
+
+						return false;
+					}
+
+					node.deleted = true;
+
+					if(node.left == null || node.right == null) { //se puede desenganchar
+
+						Node<T> child = node.left != null ? node.left : node.right;
+
+						node.removed = true;
+
+						if(toLeft == true) {
+
+							parent.left = child;
+
+						}else {
+
+							parent.right = child;
+						}
+
+						unlinkedFrom = parent;
+					}
+
+					size.decrementAndGet();
+
+				}finally {
+					node.lock.unlock();
+				}
+
+			}finally {
+				parent.lock.unlock();
+			}
+
+			//	Los nodos marcados que se quedan con un solo hijo sobran; se
+			//	quitan ya sin cerrojos, porque hay que bloquear a su padre
+			while(unlinkedFrom != null && unlinkedFrom != head && unlinkedFrom.deleted == true) {
+
+				unlinkedFrom = unlinkDeleted(unlinkedFrom.key);
+			}
+
+			return true;
+		}
+	}
+
+	/**
+	 * Desengancha el nodo de la clave si sigue marcado como eliminado y le
+	 * queda como mucho un hijo. Se busca otra vez desde la cabecera para
+	 * poder bloquear antes a su padre.
+	 *
+	 * @return el padre del nodo desenganchado, o null si no se desenganchó
+	 */
+	private Node<T> unlinkDeleted(T key) {
+
+		while(true) {
+
+			Node<T> parent = head;
+			Node<T> node = head.right;
+			boolean toLeft = false;
+
+			while(node != null) {
+
+				int cmp = key.compareTo(node.key);
+
+				if(cmp == 0) {
+
+					break;
+				}
+
+				parent = node;
+				toLeft = cmp < 0;
+				node = toLeft ? node.left : node.right;
+			}
+
+			if(node == null || node.deleted == false || (node.left != null && node.right != null)) {
+
+				return null;
+			}
+
+			parent.lock.lock();
+
+			try {
+				node.lock.lock();
+
+				try {
+					Node<T> current = toLeft ? parent.left : parent.right;
+
+					if(parent.removed == true || node.removed == true || current != node) {
+
+						continue;
+					}
+
+					if(node.deleted == false || (node.left != null && node.right != null)) {
+
+						return null;
+					}
+
+					Node<T> child = node.left != null ? node.left : node.right;
+
+					node.removed = true;
+
+					if(toLeft == true) {
+
+						parent.left = child;
+
+					}else {
+
+						parent.right = child;
+					}
+
+					return parent;
+
+				}finally {
+					node.lock.unlock();
+				}
+
+			}finally {
+				parent.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Número de nodos enganchados al árbol, incluidos los marcados como
+	 * eliminados. (para tests)
+	 */
+	int nodeCount() {
+
+		int count = 0;
+		Deque<Node<T>> pending = new ArrayDeque<Node<T>>();
+
+		if(head.right != null) {
+
+			pending.push(head.right);
+		}
+
+		while(pending.isEmpty() == false) {
+
+			Node<T> node = pending.pop();
+
+			count++;
+
+			if(node.left != null) {
+
+				pending.push(node.left);
+			}
+
+			if(node.right != null) {
+
+				pending.push(node.right);
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Devuelve un iterador en inorden (de menor a mayor) débilmente
+	 * consistente: no bloquea ni falla si el árbol cambia mientras se
+	 * recorre, y puede reflejar o no esos cambios.
+	 *
+	 * @return iterador ascendente.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+
+		return new WeakIterator();
+	}
+
+	private class WeakIterator implements Iterator<T> {
+
+		private final Deque<Node<T>> pending = new ArrayDeque<Node<T>>();
+		private T next;
+
+		WeakIterator() {
+
+			pushLeftPath(head.right);
+			advance();
+		}
+
+		private void pushLeftPath(Node<T> node) {
+
+			while(node != null) {
+
+				pending.push(node);
+				node = node.left;
+			}
+		}
+
+		/**
+		 * Busca el siguiente nodo no eliminado.
+		 */
+		private void advance() {
+
+			next = null;
+
+			while(next == null && pending.isEmpty() == false) {
+
+				Node<T> node = pending.pop();
+				pushLeftPath(node.right);
+
+				if(node.deleted == false) {
+
+					next = node.key;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+
+			if(next == null) {
+
+				throw new NoSuchElementException();
+			}
+
+			T e = next;
+			advance();
+
+			return e;
+		}
+
+		@Override
+		public void remove() {
+
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,321 @@
+package ule.edi.tree;
+
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class ConcurrentBinarySearchTreeTests {
+
+	private static final int THREADS = 8;
+
+	private ConcurrentBinarySearchTree<Integer> T = null;
+
+	private ExecutorService pool = null;
+
+	@Before
+	public void setup() {
+
+		T = new ConcurrentBinarySearchTree<Integer>();
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+
+		pool.shutdownNow();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	private List<Integer> toList(ConcurrentBinarySearchTree<Integer> t) {
+
+		List<Integer> rx = new ArrayList<Integer>();
+
+		for (Integer e : t) {
+
+			rx.add(e);
+		}
+		return rx;
+	}
+
+	private void runAll(List<Callable<Void>> tasks) throws Exception {
+
+		for (Future<Void> f : pool.invokeAll(tasks)) {
+
+			f.get();
+		}
+	}
+
+	@Test
+	public void testSequentialSemantics() {
+
+		Assert.assertTrue(T.insert(50));
+		Assert.assertTrue(T.insert(30));
+		Assert.assertTrue(T.insert(80));
+		Assert.assertTrue(T.insert(10));
+		Assert.assertTrue(T.insert(40));
+		Assert.assertFalse(T.insert(40));
+		Assert.assertEquals(5, T.size());
+
+		Assert.assertTrue(T.withdraw(30));	//	dos hijos, sólo se marca
+		Assert.assertFalse(T.contains(30));
+		Assert.assertFalse(T.withdraw(30));
+		Assert.assertTrue(T.withdraw(80));	//	hoja, se desengancha
+		Assert.assertFalse(T.withdraw(99));
+		Assert.assertEquals("[10, 40, 50]", toList(T).toString());
+
+		Assert.assertTrue(T.insert(30));	//	reutiliza el nodo marcado
+		Assert.assertTrue(T.contains(30));
+		Assert.assertEquals("[10, 30, 40, 50]", toList(T).toString());
+		Assert.assertEquals(4, T.size());
+	}
+
+	@Test
+	public void testMarkedNodeUnlinkedWhenChildLeaves() {
+
+		T.insert(50);
+		T.insert(30);
+		T.insert(80);
+		T.insert(10);
+		T.insert(40);
+		T.insert(35);
+
+		Assert.assertTrue(T.withdraw(30));	//	dos hijos, sólo se marca
+		Assert.assertEquals(6, T.nodeCount());
+
+		//	Al quitar el 10, el 30 se queda con un hijo y se desengancha
+		Assert.assertTrue(T.withdraw(10));
+		Assert.assertEquals(4, T.nodeCount());
+		Assert.assertEquals("[35, 40, 50, 80]", toList(T).toString());
+
+		//	Y si se vuelve a insertar es un nodo nuevo
+		Assert.assertTrue(T.insert(30));
+		Assert.assertEquals(5, T.nodeCount());
+		Assert.assertEquals("[30, 35, 40, 50, 80]", toList(T).toString());
+		Assert.assertEquals(5, T.size());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testIteratorException() {
+
+		Iterator<Integer> i = T.iterator();
+		Assert.assertFalse(i.hasNext());
+		i.next();
+	}
+
+	@Test
+	public void testConcurrentInsertWithdrawStress() throws Exception {
+
+		final int perThread = 20000;
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+		//	Cada hilo inserta sus claves (entrelazadas con las de los demás,
+		//	en orden desordenado para que el árbol no degenere) y luego
+		//	retira las de posición impar
+		for (int t = 0; t < THREADS; t++) {
+
+			final int id = t;
+			tasks.add(() -> {
+				for (int j = 0; j < perThread; j++) {
+					int i = (int) ((j * 7919L) % perThread);
+					Assert.assertTrue(T.insert(i * THREADS + id));
+				}
+				for (int j = 0; j < perThread; j++) {
+					int i = (int) ((j * 7919L) % perThread);
+					if (i % 2 == 1) {
+						Assert.assertTrue(T.withdraw(i * THREADS + id));
+					}
+				}
+				return null;
+			});
+		}
+		runAll(tasks);
+
+		Assert.assertEquals(THREADS * perThread / 2, T.size());
+
+		List<Integer> rx = toList(T);
+		Assert.assertEquals(THREADS * perThread / 2, rx.size());
+
+		for (int k = 0; k < rx.size(); k++) {
+
+			int e = rx.get(k);
+			Assert.assertEquals(0, (e / THREADS) % 2);
+			Assert.assertTrue(k == 0 || rx.get(k - 1) < e);
+		}
+	}
+
+	@Test
+	public void testReadersAlwaysSeeStableKeys() throws Exception {
+
+		final int stable = 1000;
+
+		for (int i = 0; i < stable; i++) {
+
+			T.insert((int) ((i * 7919L) % stable) * 2);
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+		//	La mitad de los hilos inserta y retira claves impares; la otra
+		//	mitad comprueba que las pares nunca desaparecen
+		for (int t = 0; t < THREADS; t++) {
+
+			final boolean writer = t % 2 == 0;
+			tasks.add(() -> {
+				ThreadLocalRandom rnd = ThreadLocalRandom.current();
+				for (int i = 0; i < 50000; i++) {
+					int odd = 2 * rnd.nextInt(stable) + 1;
+					if (writer) {
+						if (rnd.nextBoolean()) { T.insert(odd); } else { T.withdraw(odd); }
+					} else {
+						Assert.assertTrue(T.contains(2 * rnd.nextInt(stable)));
+					}
+				}
+				return null;
+			});
+		}
+		runAll(tasks);
+
+		int evens = 0;
+
+		for (Integer e : T) {
+
+			if (e % 2 == 0) { evens++; }
+		}
+		Assert.assertEquals(stable, evens);
+	}
+
+	/**
+	 * Operación del reparto de carga: 0 inserta, 1 elimina y el resto busca.
+	 */
+	private interface Workload {
+
+		void apply(int op, int k);
+	}
+
+	/**
+	 * Operaciones por segundo de threads hilos con un 90% de lecturas.
+	 */
+	private long opsPerSecond(int threads, final int opsPerThread, final int keys, final Workload w) throws Exception {
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+		for (int t = 0; t < threads; t++) {
+
+			tasks.add(() -> {
+				ThreadLocalRandom rnd = ThreadLocalRandom.current();
+				for (int i = 0; i < opsPerThread; i++) {
+					w.apply(rnd.nextInt(20), rnd.nextInt(keys));
+				}
+				return null;
+			});
+		}
+
+		long start = System.nanoTime();
+		runAll(tasks);
+		long elapsed = System.nanoTime() - start;
+
+		return threads * (long) opsPerThread * 1000000000L / Math.max(elapsed, 1);
+	}
+
+	@Test
+	public void testThroughput() throws Exception {
+
+		final int keys = 1 << 16;
+		final int opsPerThread = 100000;
+		final BinarySearchTreeADTImpl<Integer> locked = new BinarySearchTreeADTImpl<Integer>();
+
+		for (int i = 0; i < keys; i += 2) {
+
+			int k = (int) ((i * 2654435761L) % keys);
+
+			T.insert(k);
+			locked.insert(k);
+		}
+
+		Workload concurrent = (op, k) -> {
+			if (op == 0) { T.insert(k); } else if (op == 1) { T.withdraw(k); } else { T.contains(k); }
+		};
+		Workload synchronizedBST = (op, k) -> {
+			synchronized (locked) {
+				if (op == 0) { locked.insert(k); } else if (op == 1) { if (locked.contains(k)) { locked.withdraw(k); } } else { locked.contains(k); }
+			}
+		};
+
+		//	Calentamiento, para no medir la compilación
+		opsPerSecond(THREADS, opsPerThread / 4, keys, concurrent);
+		opsPerSecond(THREADS, opsPerThread / 4, keys, synchronizedBST);
+
+		long oursN = 0;
+		long lockedN = 0;
+
+		for (int threads : new int[] { 1, THREADS }) {
+
+			long ours = opsPerSecond(threads, opsPerThread, keys, concurrent);
+			long theirs = opsPerSecond(threads, opsPerThread, keys, synchronizedBST);
+
+			System.out.println("ConcurrentBinarySearchTree: " + threads + " hilo(s), " + ours + " ops/s; "
+					+ "BST sincronizado: " + theirs + " ops/s");
+
+			oursN = ours;
+			lockedN = theirs;
+		}
+
+		//	Cota holgada: con pocos núcleos las lecturas sin cerrojo no ganan
+		//	mucho, pero nunca deben quedar muy por debajo de un único cerrojo
+		Assert.assertTrue(oursN * 4 >= lockedN);
+		Assert.assertEquals(T.size(), toList(T).size());
+	}
+
+	@Test
+	public void testMixedWorkload() throws Exception {
+
+		final int keys = 1 << 16;
+		final int opsPerThread = 200000;
+
+		for (int i = 0; i < keys; i += 2) {
+
+			T.insert((int) ((i * 2654435761L) % keys));
+		}
+
+		for (int threads : new int[] { 1, THREADS }) {
+
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+			//	90% lecturas, 10% escrituras
+			for (int t = 0; t < threads; t++) {
+
+				tasks.add(() -> {
+					ThreadLocalRandom rnd = ThreadLocalRandom.current();
+					for (int i = 0; i < opsPerThread; i++) {
+						int k = rnd.nextInt(keys);
+						int op = rnd.nextInt(20);
+						if (op == 0) { T.insert(k); } else if (op == 1) { T.withdraw(k); } else { T.contains(k); }
+					}
+					return null;
+				});
+			}
+
+			runAll(tasks);
+		}
+
+		List<Integer> rx = toList(T);
+		Assert.assertEquals(T.size(), rx.size());
+
+		//	Los nodos marcados que quedan tienen dos hijos: no más que los vivos
+		Assert.assertTrue(T.nodeCount() < 2 * T.size() + 1);
+	}
+}
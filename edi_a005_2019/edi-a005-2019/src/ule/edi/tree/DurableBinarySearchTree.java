@@ -0,0 +1,456 @@
+package ule.edi.tree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Árbol de búsqueda cuyo contenido sobrevive a una caída del proceso.
+ *
+ * Envuelve un {@link BinarySearchTreeADTImpl} (o cualquier subclase) y
+ * anota cada insert()/withdraw() en un registro de escritura anticipada
+ * (wal.log) antes de darla por duradera. En el directorio se guarda
+ * además una foto del árbol (checkpoint.bin, en el formato de
+ * {@link TreeFiles}); al abrirlo se carga la última foto y se repiten las
+ * operaciones anotadas después.
+ *
+ * Escritura por grupos: las operaciones se acumulan en memoria y se
+ * escriben y sincronizan con el disco (fsync) de una vez, cuando hay
+ * groupCommit pendientes, cuando la más antigua lleva maxDelayMillis
+ * esperando, o al llamar a {@link #sync()} o {@link #close()}. El plazo
+ * lo vigila un hilo en segundo plano (compartido por todos los árboles),
+ * así que se cumple aunque no lleguen más operaciones; si esa
+ * sincronización falla, la siguiente operación lanza el error. Si el
+ * proceso cae, se pierden como mucho las operaciones aún no sincronizadas.
+ * Con groupCommit 1 cada operación se sincroniza antes de volver.
+ *
+ * Las operaciones se pueden llamar desde varios hilos; se hacen de una en
+ * una. {@link #getTree()} es la excepción: no está protegido.
+ *
+ * Cada checkpointEvery operaciones se hace una foto nueva y se vacía el
+ * registro, para que la recuperación no tenga que repetir demasiado.
+ *
+ * Cada entrada del registro lleva su longitud y un CRC32; si el proceso
+ * cayó a mitad de escribir una, al recuperar se descarta desde ahí.
+ *
+ * Sólo las claves son duraderas: las etiquetas no se anotan. Las
+ * modificaciones hechas directamente sobre {@link #getTree()} tampoco.
+ *
+ * @param <T>
+ *            tipo de la información en cada nodo, comparable.
+ */
+public class DurableBinarySearchTree<T extends Comparable<? super T>> implements Closeable {
+
+	private static final String CHECKPOINT = "checkpoint.bin";
+	private static final String CHECKPOINT_TMP = "checkpoint.tmp";
+	private static final String LOG = "wal.log";
+
+	private static final int INSERT = 1;
+	private static final int WITHDRAW = 2;
+
+	//	Sincroniza los grupos que cumplen su plazo sin llegar a llenarse
+	private static final ScheduledThreadPoolExecutor FLUSHER = new ScheduledThreadPoolExecutor(1, r -> {
+
+		Thread t = new Thread(r, "DurableBinarySearchTree-sync");
+
+		t.setDaemon(true);
+		return t;
+	});
+
+	static {
+		FLUSHER.setRemoveOnCancelPolicy(true);
+	}
+
+	private final Path dir;
+	private final KeyCodec<T> codec;
+	private final BinarySearchTreeADTImpl<T> tree;
+
+	private final int groupCommit;
+	private final long maxDelayMillis;
+	private final int checkpointEvery;
+
+	private FileChannel log;
+
+	//	Entradas aún no sincronizadas
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private int pendingOps;
+	private long firstPendingAt;
+
+	//	Sincronización programada para el grupo pendiente, y error de la
+	//	última que falló en segundo plano
+	private ScheduledFuture<?> flushTask;
+	private IOException flushError;
+	private long syncs;
+
+	//	Operaciones desde la última foto
+	private int sinceCheckpoint;
+
+	//	Para codificar cada entrada
+	private final ByteArrayOutputStream scratch = new ByteArrayOutputStream();
+	private final TreeFiles.Encoder encoder = new TreeFiles.Encoder(Channels.newChannel(scratch), 256);
+	private final CRC32 crc = new CRC32();
+
+	/**
+	 * Abre (o crea) un árbol duradero en el directorio, con los valores
+	 * por defecto: grupos de 1000 operaciones o 10ms, y una foto cada
+	 * 1000000 operaciones.
+	 *
+	 * @see #DurableBinarySearchTree(Path, KeyCodec, BinarySearchTreeADTImpl, int, long, int)
+	 */
+	public DurableBinarySearchTree(Path dir, KeyCodec<T> codec, BinarySearchTreeADTImpl<T> tree) throws IOException {
+		this(dir, codec, tree, 1000, 10, 1000000);
+	}
+
+	/**
+	 * Abre (o crea) un árbol duradero en el directorio y recupera su
+	 * contenido: carga la última foto en tree y repite el registro.
+	 *
+	 * @param dir directorio del árbol; se crea si no existe.
+	 * @param codec codificación de las claves en disco.
+	 * @param tree árbol vacío donde se mantiene el contenido.
+	 * @param groupCommit número de operaciones que se sincronizan juntas.
+	 * @param maxDelayMillis tiempo máximo que una operación espera a su grupo.
+	 * @param checkpointEvery operaciones entre fotos del árbol.
+	 */
+	public DurableBinarySearchTree(Path dir, KeyCodec<T> codec, BinarySearchTreeADTImpl<T> tree,
+			int groupCommit, long maxDelayMillis, int checkpointEvery) throws IOException {
+
+		if(groupCommit < 1 || checkpointEvery < 1) {
+
+			throw new IllegalArgumentException("groupCommit y checkpointEvery deben ser positivos");
+		}
+
+		this.dir = dir;
+		this.codec = codec;
+		this.tree = tree;
+		this.groupCommit = groupCommit;
+		this.maxDelayMillis = maxDelayMillis;
+		this.checkpointEvery = checkpointEvery;
+
+		Files.createDirectories(dir);
+
+		if(Files.exists(dir.resolve(CHECKPOINT))) {
+
+			TreeFiles.read(dir.resolve(CHECKPOINT), codec, tree);
+		}
+
+		log = FileChannel.open(dir.resolve(LOG), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		replay();
+	}
+
+	/**
+	 * Repite las entradas completas del registro y descarta lo que haya
+	 * detrás de la última.
+	 */
+	private void replay() throws IOException {
+
+		ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(dir.resolve(LOG)));
+		TreeFiles.Decoder dec = new TreeFiles.Decoder(in);
+		long valid = 0;
+
+		while(in.hasRemaining()) {
+
+			try {
+				int length = (int) dec.getVarLong();
+
+				if(length <= 0 || length > in.remaining() - 4) {
+
+					break;
+				}
+
+				byte[] payload = new byte[length];
+
+				in.get(payload);
+				crc.reset();
+				crc.update(payload, 0, length);
+
+				if(dec.getInt() != (int) crc.getValue()) {
+
+					break;
+				}
+
+				apply(payload);
+				valid = in.position();
+				sinceCheckpoint++;
+
+			}catch (IOException e) { //entrada a medio escribir
+
+				break;
+			}
+		}
+
+		log.truncate(valid);
+		log.position(valid);
+	}
+
+	private void apply(byte[] payload) throws IOException {
+
+		TreeFiles.Decoder dec = new TreeFiles.Decoder(ByteBuffer.wrap(payload));
+		int type = dec.getByte();
+		T key = codec.decode(null, dec);
+
+		if(type == INSERT) {
+
+			tree.insert(key);
+
+		}else if(type == WITHDRAW) {
+
+			//	Puede que la foto ya no lo tenga (el registro se repite
+			//	entero si se cayó justo después de hacer la foto)
+			if(tree.contains(key) == true) {
+
+				tree.withdraw(key);
+			}
+
+		}else {
+
+			throw new IOException("entrada de registro desconocida: " + type);
+		}
+	}
+
+	/**
+	 * El árbol con el contenido actual, para consultas.
+	 *
+	 * Es el propio árbol, no una copia, y no está protegido: sólo se puede
+	 * usar mientras ningún otro hilo llame a insert(), withdraw() o
+	 * checkpoint(). Con varios hilos, mejor {@link #contains(Comparable)}
+	 * y {@link #size()}.
+	 */
+	public BinarySearchTreeADTImpl<T> getTree() {
+		return tree;
+	}
+
+	public synchronized boolean contains(T element) {
+		return tree.contains(element);
+	}
+
+	public synchronized int size() {
+		return tree.size();
+	}
+
+	/**
+	 * Inserta el elemento y lo anota en el registro.
+	 *
+	 * @param element valor a insertar, no null.
+	 */
+	public synchronized void insert(T element) throws IOException {
+
+		if(element == null) {
+
+			throw new NullPointerException("no se permiten elementos null");
+		}
+
+		checkOpen();
+		tree.insert(element);
+		append(INSERT, element);
+	}
+
+	/**
+	 * Elimina el elemento y lo anota en el registro.
+	 *
+	 * @param element valor a eliminar.
+	 * @throws NoSuchElementException si el elemento no está en el árbol (y
+	 * 			entonces no se anota nada)
+	 */
+	public synchronized void withdraw(T element) throws IOException {
+
+		checkOpen();
+		tree.withdraw(element);
+		append(WITHDRAW, element);
+	}
+
+	private void append(int type, T key) throws IOException {
+
+		scratch.reset();
+		encoder.putByte(type);
+		codec.encode(null, key, encoder);
+		encoder.flush();
+
+		byte[] payload = scratch.toByteArray();
+
+		crc.reset();
+		crc.update(payload, 0, payload.length);
+
+		//	Longitud (varint), contenido y CRC
+		int length = payload.length;
+
+		while((length & ~0x7F) != 0) {
+
+			pending.write((length & 0x7F) | 0x80);
+			length >>>= 7;
+		}
+
+		pending.write(length);
+		pending.write(payload, 0, payload.length);
+
+		int c = (int) crc.getValue();
+
+		pending.write(c >>> 24);
+		pending.write(c >>> 16);
+		pending.write(c >>> 8);
+		pending.write(c);
+
+		boolean first = pendingOps++ == 0;
+
+		if(first == true) {
+
+			firstPendingAt = System.currentTimeMillis();
+		}
+
+		sinceCheckpoint++;
+
+		if(pendingOps >= groupCommit || System.currentTimeMillis() - firstPendingAt >= maxDelayMillis) {
+
+			sync();
+
+		}else if(first == true) {
+
+			flushTask = FLUSHER.schedule(this::flushDue, maxDelayMillis, TimeUnit.MILLISECONDS);
+		}
+
+		if(sinceCheckpoint >= checkpointEvery) {
+
+			checkpoint();
+		}
+	}
+
+	/**
+	 * Sincroniza, desde el hilo en segundo plano, el grupo que ha cumplido
+	 * su plazo. Si entre tanto se sincronizó, no hace nada.
+	 */
+	private synchronized void flushDue() {
+
+		if(log == null || pendingOps == 0) {
+
+			return;
+		}
+
+		try {
+			sync();
+
+		}catch (IOException e) {
+
+			flushError = e;
+		}
+	}
+
+	/**
+	 * Escribe y sincroniza con el disco las operaciones pendientes.
+	 */
+	public synchronized void sync() throws IOException {
+
+		checkOpen();
+
+		if(flushTask != null) {
+
+			flushTask.cancel(false);
+			flushTask = null;
+		}
+
+		if(pendingOps == 0) {
+
+			return;
+		}
+
+		ByteBuffer b = ByteBuffer.wrap(pending.toByteArray());
+
+		while(b.hasRemaining()) {
+
+			log.write(b);
+		}
+
+		log.force(false);
+		pending.reset();
+		pendingOps = 0;
+		syncs++;
+	}
+
+	/**
+	 * Veces que se ha sincronizado el registro con el disco.
+	 */
+	public synchronized long logSyncs() {
+		return syncs;
+	}
+
+	/**
+	 * Guarda una foto del árbol y vacía el registro.
+	 *
+	 * La foto se escribe en un fichero temporal que luego sustituye de
+	 * golpe al anterior, así que siempre hay una foto completa en disco.
+	 */
+	public synchronized void checkpoint() throws IOException {
+
+		sync();
+
+		Path tmp = dir.resolve(CHECKPOINT_TMP);
+
+		try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			TreeFiles.write(tree, codec, false, out);
+			out.force(true);
+		}
+
+		Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		//	Con la foto ya en su sitio, el registro sobra
+		log.truncate(0);
+		log.position(0);
+		log.force(true);
+		sinceCheckpoint = 0;
+	}
+
+	private void checkOpen() throws IOException {
+
+		if(log == null) {
+
+			throw new IOException("el árbol está cerrado");
+		}
+
+		if(flushError != null) {
+
+			IOException e = flushError;
+
+			flushError = null;
+			throw new IOException("falló la sincronización en segundo plano", e);
+		}
+	}
+
+	/**
+	 * Sincroniza las operaciones pendientes y cierra el registro.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+
+		if(log == null) {
+
+			return;
+		}
+
+		try {
+			sync();
+
+		}finally {
+
+			if(flushTask != null) {
+
+				flushTask.cancel(false);
+				flushTask = null;
+			}
+
+			log.close();
+			log = null;
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package ule.edi.tree;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class DurableBinarySearchTreeTests {
+
+	private Path dir = null;
+
+	@Before
+	public void setupDir() throws IOException {
+
+		dir = Files.createTempDirectory("durable");
+	}
+
+	@After
+	public void deleteDir() throws IOException {
+
+		try (Stream<Path> files = Files.walk(dir)) {
+
+			files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	private DurableBinarySearchTree<Integer> open(int groupCommit, int checkpointEvery) throws IOException {
+
+		return new DurableBinarySearchTree<Integer>(dir, KeyCodec.INTEGER, new BinarySearchTreeADTImpl<Integer>(),
+				groupCommit, 60000, checkpointEvery);
+	}
+
+	@Test
+	public void testRecoverFromLog() throws IOException {
+
+		DurableBinarySearchTree<Integer> t = open(1, 1000);
+
+		t.insert(50);
+		t.insert(30);
+		t.insert(80);
+		t.withdraw(30);
+		//	Sin close(): como si el proceso cayera
+
+		DurableBinarySearchTree<Integer> r = open(1, 1000);
+
+		Assert.assertEquals("{50, ∅, {80, ∅, ∅}}", r.getTree().toString());
+		r.close();
+		t.close();
+	}
+
+	@Test
+	public void testUnsyncedGroupIsLost() throws IOException {
+
+		DurableBinarySearchTree<Integer> t = open(3, 1000);
+
+		t.insert(1);
+		t.insert(2);
+		t.insert(3);	//	se sincronizan los tres
+		t.insert(4);	//	pendiente
+
+		DurableBinarySearchTree<Integer> r = open(3, 1000);
+
+		Assert.assertEquals(3, r.size());
+		Assert.assertFalse(r.contains(4));
+		r.close();
+
+		t.sync();
+		r = open(3, 1000);
+		Assert.assertTrue(r.contains(4));
+		r.close();
+		t.close();
+	}
+
+	@Test
+	public void testCheckpointAndTail() throws IOException {
+
+		DurableBinarySearchTree<Integer> t = open(10, 100);
+
+		for (int i = 0; i < 250; i++) {
+
+			t.insert(i);
+		}
+		t.withdraw(7);
+		t.close();
+
+		Assert.assertTrue(Files.exists(dir.resolve("checkpoint.bin")));
+		Assert.assertEquals(50 * 8 + 7, Files.size(dir.resolve("wal.log")));	//	sólo lo posterior a la última foto
+
+		AVLTreeADTImpl<Integer> avl = new AVLTreeADTImpl<Integer>();
+		DurableBinarySearchTree<Integer> r = new DurableBinarySearchTree<Integer>(dir, KeyCodec.INTEGER, avl, 10, 60000, 100);
+
+		Assert.assertEquals(249, r.size());
+		Assert.assertFalse(r.contains(7));
+		Assert.assertEquals(9, avl.height());
+		r.close();
+	}
+
+	@Test
+	public void testReplayAfterCheckpointIsIdempotent() throws IOException {
+
+		DurableBinarySearchTree<Integer> t = open(1, 1000);
+
+		t.insert(1);
+		t.insert(2);
+		t.withdraw(1);
+		t.close();
+
+		//	Como si cayera tras escribir la foto pero antes de vaciar el registro
+		byte[] log = Files.readAllBytes(dir.resolve("wal.log"));
+		t = open(1, 1000);
+		t.checkpoint();
+		t.close();
+		Files.write(dir.resolve("wal.log"), log);
+
+		DurableBinarySearchTree<Integer> r = open(1, 1000);
+
+		Assert.assertEquals("{2, ∅, ∅}", r.getTree().toString());
+		r.close();
+	}
+
+	@Test
+	public void testTornTailIsDiscarded() throws IOException {
+
+		DurableBinarySearchTree<Integer> t = open(1, 1000);
+
+		t.insert(1);
+		t.insert(2);
+		t.close();
+
+		long good = Files.size(dir.resolve("wal.log"));
+		Files.write(dir.resolve("wal.log"), new byte[] { 5, 1, 2 }, StandardOpenOption.APPEND);
+
+		DurableBinarySearchTree<Integer> r = open(1, 1000);
+
+		Assert.assertEquals(2, r.size());
+		Assert.assertEquals(good, Files.size(dir.resolve("wal.log")));
+
+		r.insert(3);
+		r.close();
+
+		r = open(1, 1000);
+		Assert.assertEquals(3, r.size());
+		r.close();
+	}
+
+	@Test
+	public void testWithdrawMissingIsNotLogged() throws IOException {
+
+		DurableBinarySearchTree<Integer> t = open(1, 1000);
+
+		try {
+			t.withdraw(1);
+			Assert.fail();
+		} catch (NoSuchElementException e) {
+			Assert.assertEquals(0, Files.size(dir.resolve("wal.log")));
+		} finally {
+			t.close();
+		}
+	}
+
+	@Test
+	public void testGroupCommitBatchesSyncs() throws IOException {
+
+		final int ops = 20000;
+
+		DurableBinarySearchTree<Integer> t = open(1000, 1000000);
+
+		for (int i = 0; i < ops; i++) {
+
+			t.insert((int) ((i * 7919L) % ops));
+		}
+
+		//	Un fsync por grupo de 1000, no uno por inserción
+		Assert.assertEquals(ops / 1000, t.logSyncs());
+		t.close();
+
+		DurableBinarySearchTree<Integer> r = open(1000, 1000000);
+
+		Assert.assertEquals(ops, r.size());
+		r.close();
+	}
+
+	@Test
+	public void testMaxDelayWithoutMoreOperations() throws IOException, InterruptedException {
+
+		DurableBinarySearchTree<Integer> t = new DurableBinarySearchTree<Integer>(dir, KeyCodec.INTEGER,
+				new BinarySearchTreeADTImpl<Integer>(), 1000, 20, 1000000);
+
+		t.insert(1);
+
+		//	El grupo no se llena, pero se sincroniza al cumplir el plazo
+		for (int i = 0; i < 500 && t.logSyncs() == 0; i++) {
+
+			Thread.sleep(10);
+		}
+
+		Assert.assertEquals(1, t.logSyncs());
+
+		DurableBinarySearchTree<Integer> r = new DurableBinarySearchTree<Integer>(dir, KeyCodec.INTEGER,
+				new BinarySearchTreeADTImpl<Integer>(), 1000, 20, 1000000);
+
+		Assert.assertTrue(r.contains(1));
+		r.close();
+		t.close();
+	}
+}
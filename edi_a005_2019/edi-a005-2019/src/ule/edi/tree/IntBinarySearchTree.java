@@ -0,0 +1,213 @@
+package ule.edi.tree;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Árbol de búsqueda (AVL) de claves int, sin objetos por nodo.
+ *
+ * Las claves, los hijos y las alturas se guardan en arrays paralelos
+ * (4 + 4 + 4 + 1 bytes por clave), así que ni se crea un Integer por
+ * elemento ni se llama a compareTo() al buscar.
+ *
+ * @see LongBinarySearchTree
+ */
+public class IntBinarySearchTree extends AbstractPrimitiveBinarySearchTree {
+
+	private int[] keys;
+	private int[] left;
+	private int[] right;
+	private byte[] heights;
+
+	/**
+	 * Árbol vacío
+	 */
+	public IntBinarySearchTree() {
+		this(16);
+	}
+
+	/**
+	 * Árbol vacío con sitio para initialCapacity claves sin crecer.
+	 */
+	public IntBinarySearchTree(int initialCapacity) {
+
+		keys = new int[initialCapacity];
+		left = new int[initialCapacity];
+		right = new int[initialCapacity];
+		heights = new byte[initialCapacity];
+	}
+
+	@Override
+	protected long keyAt(int n) {
+		return keys[n];
+	}
+
+	@Override
+	protected void setKeyAt(int n, long key) {
+		keys[n] = (int) key;
+	}
+
+	@Override
+	protected int leftOf(int n) {
+		return left[n];
+	}
+
+	@Override
+	protected void setLeftOf(int n, int child) {
+		left[n] = child;
+	}
+
+	@Override
+	protected int rightOf(int n) {
+		return right[n];
+	}
+
+	@Override
+	protected void setRightOf(int n, int child) {
+		right[n] = child;
+	}
+
+	@Override
+	protected int heightOf(int n) {
+		return heights[n];
+	}
+
+	@Override
+	protected void setHeightOf(int n, int height) {
+		heights[n] = (byte) height;
+	}
+
+	@Override
+	protected void ensureCapacity(int nodes) {
+
+		if(nodes > keys.length) {
+
+			int capacity = Math.max(nodes, keys.length + (keys.length >> 1) + 1);
+
+			keys = Arrays.copyOf(keys, capacity);
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			heights = Arrays.copyOf(heights, capacity);
+		}
+	}
+
+	/**
+	 * Indica si el elemento está en el árbol.
+	 */
+	public boolean contains(int element) {
+		return findNode(element) != NIL;
+	}
+
+	/**
+	 * Inserta un nuevo elemento. Si ya existe en el árbol NO lo inserta.
+	 */
+	public void insert(int element) {
+		insertKey(element);
+	}
+
+	/**
+	 * Inserta todos los elementos del array, en ese orden.
+	 */
+	public void insert(int ... elements) {
+
+		for (int e : elements) {
+
+			insertKey(e);
+		}
+	}
+
+	/**
+	 * Elimina un elemento del árbol.
+	 *
+	 * @throws NoSuchElementException si el elemento no está en el árbol
+	 */
+	public void withdraw(int element) {
+
+		if(withdrawKey(element) == false) {
+
+			throw new NoSuchElementException();
+		}
+	}
+
+	/**
+	 * Menor elemento del árbol.
+	 *
+	 * @throws NoSuchElementException si el árbol está vacío
+	 */
+	public int first() {
+		return keys[extremeNode(false)];
+	}
+
+	/**
+	 * Mayor elemento del árbol.
+	 *
+	 * @throws NoSuchElementException si el árbol está vacío
+	 */
+	public int last() {
+		return keys[extremeNode(true)];
+	}
+
+	/**
+	 * Elementos del árbol en orden ascendente.
+	 */
+	public int[] toArray() {
+
+		int[] rx = new int[size()];
+		PrimitiveIterator.OfInt it = intIterator(false, false, 0, false, 0);
+
+		for (int i = 0; i < rx.length; i++) {
+
+			rx[i] = it.nextInt();
+		}
+
+		return rx;
+	}
+
+	/**
+	 * Carga de golpe todos los elementos del array (junto con los que ya
+	 * hubiera en el árbol), dejándolo perfectamente equilibrado en tiempo
+	 * lineal. Si el array ya viene ordenado no se ordena.
+	 *
+	 * @param elements elementos a insertar.
+	 */
+	public void bulkLoad(int ... elements) {
+
+		long[] keys = new long[elements.length];
+
+		for (int i = 0; i < keys.length; i++) {
+
+			keys[i] = elements[i];
+		}
+
+		bulkLoadKeys(keys, true);
+	}
+
+	/**
+	 * Iterador en inorden (de menor a mayor), sin crear objetos por elemento.
+	 */
+	public PrimitiveIterator.OfInt iteratorInorden() {
+		return intIterator(false, false, 0, false, 0);
+	}
+
+	/**
+	 * Iterador ascendente sobre los elementos del intervalo [lo, hi).
+	 */
+	public PrimitiveIterator.OfInt iteratorRange(int lo, int hi) {
+		return intIterator(false, true, lo, true, hi);
+	}
+
+	/**
+	 * Iterador en inorden inverso (de mayor a menor).
+	 */
+	public PrimitiveIterator.OfInt descendingIterator() {
+		return intIterator(true, false, 0, false, 0);
+	}
+
+	/**
+	 * Iterador descendente sobre los elementos del intervalo [lo, hi).
+	 */
+	public PrimitiveIterator.OfInt descendingIterator(int lo, int hi) {
+		return intIterator(true, true, lo, true, hi);
+	}
+}
@@ -0,0 +1,121 @@
+package ule.edi.tree;
+
+import java.io.IOException;
+
+/**
+ * Codificación binaria de las claves de un árbol para {@link TreeFiles}.
+ *
+ * Las claves se escriben en orden ascendente, así que cada una se puede
+ * codificar respecto a la anterior (previous, null para la primera): los
+ * números como la diferencia en varint, y los textos como el prefijo que
+ * comparten más el resto.
+ *
+ * @param <T>
+ *            tipo de las claves.
+ */
+public interface KeyCodec<T> {
+
+	/**
+	 * Escribe key, sabiendo que la clave anterior fue previous.
+	 */
+	void encode(T previous, T key, TreeFiles.Encoder out) throws IOException;
+
+	/**
+	 * Lee la clave que sigue a previous.
+	 */
+	T decode(T previous, TreeFiles.Decoder in) throws IOException;
+
+	/**
+	 * Long: diferencia con la anterior, en varint.
+	 */
+	KeyCodec<Long> LONG = new KeyCodec<Long>() {
+
+		@Override
+		public void encode(Long previous, Long key, TreeFiles.Encoder out) throws IOException {
+
+			if(previous == null) {
+
+				out.putZigZag(key);
+
+			}else {
+
+				out.putVarLong(key - previous);
+			}
+		}
+
+		@Override
+		public Long decode(Long previous, TreeFiles.Decoder in) throws IOException {
+			return previous == null ? in.getZigZag() : previous + in.getVarLong();
+		}
+	};
+
+	/**
+	 * Integer: diferencia con la anterior, en varint.
+	 */
+	KeyCodec<Integer> INTEGER = new KeyCodec<Integer>() {
+
+		@Override
+		public void encode(Integer previous, Integer key, TreeFiles.Encoder out) throws IOException {
+
+			if(previous == null) {
+
+				out.putZigZag(key);
+
+			}else {
+
+				out.putVarLong((long) key - previous);
+			}
+		}
+
+		@Override
+		public Integer decode(Integer previous, TreeFiles.Decoder in) throws IOException {
+			return previous == null ? (int) in.getZigZag() : (int) (previous + in.getVarLong());
+		}
+	};
+
+	/**
+	 * String: longitud del prefijo común con la anterior y el resto en UTF-8.
+	 */
+	KeyCodec<String> STRING = new KeyCodec<String>() {
+
+		@Override
+		public void encode(String previous, String key, TreeFiles.Encoder out) throws IOException {
+
+			int prefix = 0;
+
+			if(previous != null) {
+
+				int max = Math.min(previous.length(), key.length());
+
+				while(prefix < max && previous.charAt(prefix) == key.charAt(prefix)) {
+
+					prefix++;
+				}
+
+				//	No se parte un par sustituto
+				if(prefix > 0 && Character.isHighSurrogate(key.charAt(prefix - 1))) {
+
+					prefix--;
+				}
+			}
+
+			out.putVarLong(prefix);
+			out.putString(key.substring(prefix));
+		}
+
+		@Override
+		public String decode(String previous, TreeFiles.Decoder in) throws IOException {
+
+			long prefix = in.getVarLong();
+
+			if(prefix < 0 || prefix > (previous == null ? 0 : previous.length())) {
+
+				throw new IOException("prefijo mayor que la clave anterior: " + prefix);
+			}
+
+			String suffix = in.getString();
+
+			return prefix == 0 ? suffix : previous.substring(0, (int) prefix) + suffix;
+		}
+	};
+}
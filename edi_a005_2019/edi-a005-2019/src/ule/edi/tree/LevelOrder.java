@@ -0,0 +1,379 @@
+package ule.edi.tree;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recorrido en anchura (por niveles) de un árbol cualquiera.
+ *
+ * Los nodos pendientes se guardan en una cola circular sobre un array
+ * ({@link ArrayDeque}). El recorrido avanza nivel a nivel: saca de la cola
+ * todos los nodos de un nivel, los visita y después encola sus hijos no
+ * vacíos, así que además de cada nodo se puede avisar del principio y del
+ * final de cada nivel y contar su anchura.
+ *
+ * Opcionalmente los nodos de cada nivel se visitan en paralelo en un
+ * {@link ForkJoinPool}; entonces el orden de las visitas dentro de un
+ * nivel no está definido, pero cada nodo recibe la misma posición que en
+ * el recorrido secuencial. Los niveles se siguen visitando de uno en uno.
+ * Durante el recorrido no se debe cambiar la estructura del árbol.
+ *
+ * Por ejemplo, para etiquetar cada nodo con su posición:
+ *
+ * 		new LevelOrder<T>(tree).forEach((node, level, position) -> node.setTag("width", position));
+ *
+ * @param <T> tipo de la información en cada nodo.
+ */
+public class LevelOrder<T> {
+
+	/**
+	 * Acción para cada nodo no vacío.
+	 */
+	public interface Visitor<T> {
+
+		/**
+		 * @param node nodo visitado.
+		 * @param level nivel del nodo; la raíz está en el 0.
+		 * @param position posición del nodo en el recorrido, desde 1.
+		 */
+		void visit(TreeADT<T> node, int level, int position);
+	}
+
+	/**
+	 * Acción para cada nodo que decide si se sigue, se poda o se termina,
+	 * como en {@link TreeTraversal}.
+	 */
+	interface Control<T> {
+
+		TreeTraversal.Action visit(TreeADT<T> node, int level, int position);
+	}
+
+	/**
+	 * Avisos al principio y al final de cada nivel. Se llaman siempre desde
+	 * el hilo que hace el recorrido, también en paralelo.
+	 */
+	public interface LevelListener {
+
+		default void startLevel(int level, int width) {
+		}
+
+		default void endLevel(int level, int width) {
+		}
+	}
+
+	/**
+	 * Anchura de cada nivel tras un recorrido.
+	 */
+	public static final class Stats {
+
+		private int[] widths = new int[16];
+		private int levels;
+		private int nodes;
+
+		private void add(int width) {
+
+			if(levels == widths.length) {
+
+				widths = Arrays.copyOf(widths, levels * 2);
+			}
+
+			widths[levels++] = width;
+			nodes += width;
+		}
+
+		/**
+		 * Número de niveles, que es la altura del árbol.
+		 */
+		public int getLevels() {
+			return levels;
+		}
+
+		/**
+		 * Número de nodos no vacíos.
+		 */
+		public int getNodes() {
+			return nodes;
+		}
+
+		/**
+		 * Número de nodos no vacíos en el nivel.
+		 */
+		public int getWidth(int level) {
+
+			if(level < 0 || level >= levels) {
+
+				throw new IndexOutOfBoundsException("nivel " + level);
+			}
+
+			return widths[level];
+		}
+
+		/**
+		 * Anchura del nivel más ancho (0 si el árbol está vacío).
+		 */
+		public int getMaxWidth() {
+
+			int max = 0;
+
+			for (int i = 0; i < levels; i++) {
+
+				max = Math.max(max, widths[i]);
+			}
+
+			return max;
+		}
+
+		/**
+		 * Primer nivel con la anchura máxima (-1 si el árbol está vacío).
+		 */
+		public int getMaxWidthLevel() {
+
+			int level = -1;
+
+			for (int i = 0; i < levels; i++) {
+
+				if(level < 0 || widths[i] > widths[level]) {
+
+					level = i;
+				}
+			}
+
+			return level;
+		}
+
+		public int[] getWidths() {
+			return Arrays.copyOf(widths, levels);
+		}
+	}
+
+	//	Nodos por tarea, como mínimo, al visitar un nivel en paralelo
+	private static final int MIN_CHUNK = 256;
+
+	private final TreeADT<T> root;
+
+	private LevelListener listener;
+
+	private ForkJoinPool pool;
+
+	private int parallelThreshold;
+
+	public LevelOrder(TreeADT<T> root) {
+		this.root = root;
+	}
+
+	/**
+	 * Avisa a listener del principio y final de cada nivel.
+	 */
+	public LevelOrder<T> onLevel(LevelListener listener) {
+
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * Visita en pool los niveles con al menos 1024 nodos.
+	 */
+	public LevelOrder<T> parallel(ForkJoinPool pool) {
+		return parallel(pool, 1024);
+	}
+
+	/**
+	 * Visita en pool los niveles con al menos threshold nodos; los demás,
+	 * en el hilo que hace el recorrido.
+	 */
+	public LevelOrder<T> parallel(ForkJoinPool pool, int threshold) {
+
+		if(threshold < 1) {
+
+			throw new IllegalArgumentException("el umbral debe ser positivo");
+		}
+
+		this.pool = pool;
+		this.parallelThreshold = threshold;
+		return this;
+	}
+
+	/**
+	 * Sólo calcula la anchura de cada nivel.
+	 */
+	public Stats stats() {
+		return forEach(null);
+	}
+
+	/**
+	 * Recorre el árbol por niveles y visita cada nodo no vacío.
+	 *
+	 * @param visitor acción para cada nodo (null para sólo recorrer).
+	 * @return anchura de cada nivel.
+	 */
+	public Stats forEach(Visitor<T> visitor) {
+
+		Stats stats = new Stats();
+
+		walk(visitor, null, stats);
+		return stats;
+	}
+
+	/**
+	 * Recorre el árbol por niveles, siempre en el hilo que llama, dejando
+	 * que control pode sub-árboles o termine el recorrido. Los nodos
+	 * podados no se cuentan en las anchuras.
+	 *
+	 * @return el nodo en el que control pidió terminar, o null si se
+	 * 			recorrió entero
+	 */
+	TreeADT<T> walk(Control<T> control) {
+		return walk(null, control, new Stats());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private TreeADT<T> walk(Visitor<T> visitor, Control<T> control, Stats stats) {
+
+		if(root.isEmpty() == true) {
+
+			return null;
+		}
+
+		ArrayDeque<TreeADT<T>> queue = new ArrayDeque<TreeADT<T>>();
+		TreeADT<T>[] level = new TreeADT[16];
+		int position = 1;
+
+		queue.add(root);
+
+		while(queue.isEmpty() == false) {
+
+			//	En la cola está exactamente el nivel actual
+			int width = queue.size();
+
+			if(level.length < width) {
+
+				level = new TreeADT[Math.max(width, level.length * 2)];
+			}
+
+			for (int i = 0; i < width; i++) {
+
+				level[i] = queue.poll();
+			}
+
+			int depth = stats.getLevels();
+
+			if(listener != null) {
+
+				listener.startLevel(depth, width);
+			}
+
+			if(control != null) {
+
+				//	Los hijos se encolan tras la visita, para poder podarlos
+				for (int i = 0; i < width; i++) {
+
+					TreeTraversal.Action a = control.visit(level[i], depth, position + i);
+
+					if(a == TreeTraversal.Action.STOP) {
+
+						return level[i];
+
+					}else if(a == TreeTraversal.Action.CONTINUE) {
+
+						enqueueChildren(queue, level[i]);
+					}
+				}
+
+			}else {
+
+				if(visitor != null) {
+
+					if(pool != null && width >= parallelThreshold) {
+
+						int chunk = Math.max(MIN_CHUNK, width / (pool.getParallelism() * 4));
+
+						pool.invoke(new VisitRange<T>(visitor, level, depth, position, 0, width, chunk));
+
+					}else {
+
+						for (int i = 0; i < width; i++) {
+
+							visitor.visit(level[i], depth, position + i);
+						}
+					}
+				}
+
+				for (int i = 0; i < width; i++) {
+
+					enqueueChildren(queue, level[i]);
+				}
+			}
+
+			if(listener != null) {
+
+				listener.endLevel(depth, width);
+			}
+
+			Arrays.fill(level, 0, width, null);
+			stats.add(width);
+			position += width;
+		}
+
+		return null;
+	}
+
+	private static <T> void enqueueChildren(ArrayDeque<TreeADT<T>> queue, TreeADT<T> node) {
+
+		for (int j = 0; j < node.getMaxDegree(); j++) {
+
+			TreeADT<T> child = node.getSubtree(j);
+
+			if(child.isEmpty() == false) {
+
+				queue.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Visita los nodos [lo, hi) de un nivel, dividiéndolos en tareas.
+	 */
+	private static final class VisitRange<T> extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Visitor<T> visitor;
+		private final TreeADT<T>[] level;
+		private final int depth;
+		private final int first;
+		private final int lo;
+		private final int hi;
+		private final int chunk;
+
+		VisitRange(Visitor<T> visitor, TreeADT<T>[] level, int depth, int first, int lo, int hi, int chunk) {
+			this.visitor = visitor;
+			this.level = level;
+			this.depth = depth;
+			this.first = first;
+			this.lo = lo;
+			this.hi = hi;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute() {
+
+			if(hi - lo <= chunk) {
+
+				for (int i = lo; i < hi; i++) {
+
+					visitor.visit(level[i], depth, first + i);
+				}
+
+			}else {
+
+				int mid = (lo + hi) >>> 1;
+
+				invokeAll(new VisitRange<T>(visitor, level, depth, first, lo, mid, chunk),
+						new VisitRange<T>(visitor, level, depth, first, mid, hi, chunk));
+			}
+		}
+	}
+}
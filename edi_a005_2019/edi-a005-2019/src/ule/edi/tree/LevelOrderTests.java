@@ -0,0 +1,110 @@
+package ule.edi.tree;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class LevelOrderTests {
+
+	/*
+	* 50
+	* |  30
+	* |  |  10
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  40
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  80
+	* |  |  60
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  ∅
+	*/
+	private BinarySearchTreeADTImpl<Integer> T6 = null;
+
+	@Before
+	public void setupTrees() {
+
+		T6 = new BinarySearchTreeADTImpl<Integer>();
+		T6.insert(50, 30, 10, 40, 80, 60);
+	}
+
+	@Test
+	public void testVisitOrderAndLevels() {
+
+		final List<String> visits = new ArrayList<String>();
+
+		LevelOrder.Stats stats = new LevelOrder<Integer>(T6)
+				.onLevel(new LevelOrder.LevelListener() {
+
+					@Override
+					public void startLevel(int level, int width) {
+						visits.add("<" + level + ":" + width);
+					}
+
+					@Override
+					public void endLevel(int level, int width) {
+						visits.add(">");
+					}
+				})
+				.forEach((node, level, position) -> visits.add(position + "=" + node.getContent()));
+
+		Assert.assertEquals("[<0:1, 1=50, >, <1:2, 2=30, 3=80, >, <2:3, 4=10, 5=40, 6=60, >]", visits.toString());
+		Assert.assertEquals(3, stats.getLevels());
+		Assert.assertEquals(6, stats.getNodes());
+		Assert.assertEquals(3, stats.getMaxWidth());
+		Assert.assertEquals(2, stats.getMaxWidthLevel());
+		Assert.assertEquals("[1, 2, 3]", Arrays.toString(stats.getWidths()));
+	}
+
+	@Test
+	public void testEmptyTree() {
+
+		LevelOrder.Stats stats = new LevelOrder<Integer>(new BinarySearchTreeADTImpl<Integer>()).stats();
+
+		Assert.assertEquals(0, stats.getLevels());
+		Assert.assertEquals(0, stats.getMaxWidth());
+		Assert.assertEquals(-1, stats.getMaxWidthLevel());
+	}
+
+	@Test
+	public void testParallelTagWidthSameAsSequential() {
+
+		BinarySearchTreeADTImpl<Integer> seq = new BinarySearchTreeADTImpl<Integer>();
+		BinarySearchTreeADTImpl<Integer> par = new BinarySearchTreeADTImpl<Integer>();
+
+		for (int i = 0; i < 5000; i++) {
+
+			int k = (i * 7919) % 5003;
+
+			seq.insert(k);
+			par.insert(k);
+		}
+
+		seq.tagWidth();
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			LevelOrder.Stats stats = new LevelOrder<Integer>(par).parallel(pool, 16)
+					.forEach((node, level, position) -> node.setTag("width", position));
+
+			Assert.assertEquals(5000, stats.getNodes());
+			Assert.assertEquals(seq.height(), stats.getLevels());
+
+		}finally {
+
+			pool.shutdown();
+		}
+
+		Assert.assertEquals(seq.toString(), par.toString());
+	}
+}
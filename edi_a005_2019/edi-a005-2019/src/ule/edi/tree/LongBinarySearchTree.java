@@ -0,0 +1,93 @@
+package ule.edi.tree;
+
+import java.util.Arrays;
+
+/**
+ * Árbol de búsqueda (AVL) de claves long, sin objetos por nodo.
+ *
+ * Las claves, los hijos y las alturas se guardan en arrays paralelos
+ * (8 + 4 + 4 + 1 bytes por clave), así que ni se crea un Long por
+ * elemento ni se llama a compareTo() al buscar.
+ *
+ * @see IntBinarySearchTree
+ * @see OffHeapLongBinarySearchTree
+ */
+public class LongBinarySearchTree extends AbstractLongBinarySearchTree {
+
+	private long[] keys;
+	private int[] left;
+	private int[] right;
+	private byte[] heights;
+
+	/**
+	 * Árbol vacío
+	 */
+	public LongBinarySearchTree() {
+		this(16);
+	}
+
+	/**
+	 * Árbol vacío con sitio para initialCapacity claves sin crecer.
+	 */
+	public LongBinarySearchTree(int initialCapacity) {
+
+		keys = new long[initialCapacity];
+		left = new int[initialCapacity];
+		right = new int[initialCapacity];
+		heights = new byte[initialCapacity];
+	}
+
+	@Override
+	protected long keyAt(int n) {
+		return keys[n];
+	}
+
+	@Override
+	protected void setKeyAt(int n, long key) {
+		keys[n] = key;
+	}
+
+	@Override
+	protected int leftOf(int n) {
+		return left[n];
+	}
+
+	@Override
+	protected void setLeftOf(int n, int child) {
+		left[n] = child;
+	}
+
+	@Override
+	protected int rightOf(int n) {
+		return right[n];
+	}
+
+	@Override
+	protected void setRightOf(int n, int child) {
+		right[n] = child;
+	}
+
+	@Override
+	protected int heightOf(int n) {
+		return heights[n];
+	}
+
+	@Override
+	protected void setHeightOf(int n, int height) {
+		heights[n] = (byte) height;
+	}
+
+	@Override
+	protected void ensureCapacity(int nodes) {
+
+		if(nodes > keys.length) {
+
+			int capacity = Math.max(nodes, keys.length + (keys.length >> 1) + 1);
+
+			keys = Arrays.copyOf(keys, capacity);
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			heights = Arrays.copyOf(heights, capacity);
+		}
+	}
+}
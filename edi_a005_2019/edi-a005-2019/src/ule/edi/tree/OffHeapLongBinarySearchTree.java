@@ -0,0 +1,188 @@
+package ule.edi.tree;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Árbol de búsqueda (AVL) de claves long cuyos nodos están fuera del heap.
+ *
+ * Cada nodo ocupa NODE_BYTES bytes en un ByteBuffer directo: la clave, los
+ * índices de sus hijos y su altura. Los buffers se reservan por bloques de
+ * CHUNK_NODES nodos, así que el árbol crece sin copiar lo que ya tiene.
+ * Para el recolector de basura el árbol son sólo unos pocos objetos, tenga
+ * los nodos que tenga, de modo que sus pausas no dependen del tamaño del
+ * árbol.
+ *
+ * La memoria se libera con {@link #close()}; después el árbol queda vacío
+ * y no admite más inserciones.
+ *
+ * @see LongBinarySearchTree
+ */
+public class OffHeapLongBinarySearchTree extends AbstractLongBinarySearchTree implements AutoCloseable {
+
+	//	Disposición de un nodo: clave, hijo izquierdo, hijo derecho y altura
+	//
+	private static final int KEY = 0;
+	private static final int LEFT = 8;
+	private static final int RIGHT = 12;
+	private static final int HEIGHT = 16;
+
+	/**
+	 * Bytes por nodo.
+	 */
+	public static final int NODE_BYTES = 20;
+
+	/**
+	 * Nodos por bloque de memoria.
+	 */
+	public static final int CHUNK_NODES = 1 << 16;
+
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_MASK = CHUNK_NODES - 1;
+
+	private List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+
+	/**
+	 * Árbol vacío; no reserva memoria hasta la primera inserción.
+	 */
+	public OffHeapLongBinarySearchTree() {
+	}
+
+	private ByteBuffer chunk(int n) {
+		return chunks.get(n >>> CHUNK_SHIFT);
+	}
+
+	private static int offset(int n) {
+		return (n & CHUNK_MASK) * NODE_BYTES;
+	}
+
+	@Override
+	protected long keyAt(int n) {
+		return chunk(n).getLong(offset(n) + KEY);
+	}
+
+	@Override
+	protected void setKeyAt(int n, long key) {
+		chunk(n).putLong(offset(n) + KEY, key);
+	}
+
+	@Override
+	protected int leftOf(int n) {
+		return chunk(n).getInt(offset(n) + LEFT);
+	}
+
+	@Override
+	protected void setLeftOf(int n, int child) {
+		chunk(n).putInt(offset(n) + LEFT, child);
+	}
+
+	@Override
+	protected int rightOf(int n) {
+		return chunk(n).getInt(offset(n) + RIGHT);
+	}
+
+	@Override
+	protected void setRightOf(int n, int child) {
+		chunk(n).putInt(offset(n) + RIGHT, child);
+	}
+
+	@Override
+	protected int heightOf(int n) {
+		return chunk(n).get(offset(n) + HEIGHT);
+	}
+
+	@Override
+	protected void setHeightOf(int n, int height) {
+		chunk(n).put(offset(n) + HEIGHT, (byte) height);
+	}
+
+	@Override
+	protected void ensureCapacity(int nodes) {
+
+		if(chunks == null) {
+
+			throw new IllegalStateException("el árbol está cerrado");
+		}
+
+		while((long) chunks.size() * CHUNK_NODES < nodes) {
+
+			chunks.add(ByteBuffer.allocateDirect(CHUNK_NODES * NODE_BYTES).order(ByteOrder.nativeOrder()));
+		}
+	}
+
+	/**
+	 * Bytes reservados fuera del heap.
+	 */
+	public long offHeapBytes() {
+		return chunks == null ? 0 : (long) chunks.size() * CHUNK_NODES * NODE_BYTES;
+	}
+
+	/**
+	 * Vacía el árbol y devuelve al sistema la memoria de sus nodos, sin
+	 * esperar a que el recolector de basura descarte los buffers.
+	 */
+	@Override
+	public void close() {
+
+		if(chunks == null) {
+
+			return;
+		}
+
+		clear();
+
+		for (ByteBuffer b : chunks) {
+
+			free(b);
+		}
+
+		chunks = null;
+	}
+
+	//	Liberación explícita de un buffer directo (sun.misc.Unsafe.invokeCleaner,
+	//	disponible desde Java 9). Si no está, la memoria se libera cuando el
+	//	recolector descarte el buffer.
+	//
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+
+		Object unsafe = null;
+		Method invokeCleaner = null;
+
+		try {
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			Field f = c.getDeclaredField("theUnsafe");
+
+			f.setAccessible(true);
+			unsafe = f.get(null);
+			invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+
+		}catch (ReflectiveOperationException | RuntimeException e) {
+
+			unsafe = null;
+			invokeCleaner = null;
+		}
+
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private static void free(ByteBuffer b) {
+
+		if(INVOKE_CLEANER != null) {
+
+			try {
+				INVOKE_CLEANER.invoke(UNSAFE, b);
+
+			}catch (ReflectiveOperationException e) {
+				//	Se queda para el recolector
+			}
+		}
+	}
+}
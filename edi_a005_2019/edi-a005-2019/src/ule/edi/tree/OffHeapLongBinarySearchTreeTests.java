@@ -0,0 +1,109 @@
+package ule.edi.tree;
+
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class OffHeapLongBinarySearchTreeTests {
+
+	private OffHeapLongBinarySearchTree T = null;
+
+	@Before
+	public void setupTree() {
+
+		T = new OffHeapLongBinarySearchTree();
+	}
+
+	@After
+	public void closeTree() {
+
+		T.close();
+	}
+
+	@Test
+	public void testSameAsLongBinarySearchTree() {
+
+		LongBinarySearchTree expected = new LongBinarySearchTree();
+
+		T.insert(1, 2, 3, 4, 5, 6, 7);
+		expected.insert(1, 2, 3, 4, 5, 6, 7);
+		Assert.assertEquals(expected.toString(), T.toString());
+
+		T.withdraw(4);
+		expected.withdraw(4);
+		Assert.assertEquals(expected.toString(), T.toString());
+		Assert.assertEquals(6, T.size());
+		Assert.assertEquals(1, T.first());
+		Assert.assertEquals(7, T.last());
+	}
+
+	@Test
+	public void testLargerThanOneChunk() {
+
+		Random rnd = new Random(3);
+		TreeSet<Long> expected = new TreeSet<Long>();
+
+		for (int i = 0; i < 3 * OffHeapLongBinarySearchTree.CHUNK_NODES; i++) {
+
+			long k = rnd.nextLong();
+
+			T.insert(k);
+			expected.add(k);
+		}
+
+		for (int i = 0; i < OffHeapLongBinarySearchTree.CHUNK_NODES; i++) {
+
+			Long k = expected.pollFirst();
+
+			T.withdraw(k);
+		}
+
+		Assert.assertEquals(expected.size(), T.size());
+		Assert.assertTrue(T.height() <= 1.45 * Math.log(expected.size() + 2) / Math.log(2));
+		Assert.assertTrue(T.offHeapBytes() >= 3L * OffHeapLongBinarySearchTree.CHUNK_NODES * OffHeapLongBinarySearchTree.NODE_BYTES);
+
+		long lo = expected.first();
+		long hi = 0;
+		PrimitiveIterator.OfLong i = T.iteratorRange(lo, hi);
+
+		for (Long e : expected.subSet(lo, hi)) {
+
+			Assert.assertTrue(i.hasNext());
+			Assert.assertEquals(e.longValue(), i.nextLong());
+		}
+		Assert.assertFalse(i.hasNext());
+	}
+
+	@Test
+	public void testBulkLoad() {
+
+		T.bulkLoad(5, 4, 3, 2, 1);
+		Assert.assertEquals("{3, {1, ∅, {2, ∅, ∅}}, {4, ∅, {5, ∅, ∅}}}", T.toString());
+		Assert.assertTrue(T.contains(2));
+		Assert.assertFalse(T.contains(6));
+	}
+
+	@Test
+	public void testClose() {
+
+		T.insert(1, 2, 3);
+		T.close();
+		Assert.assertEquals(0, T.offHeapBytes());
+		Assert.assertFalse(T.contains(2));
+		T.close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testInsertAfterClose() {
+
+		T.close();
+		T.insert(1);
+	}
+}
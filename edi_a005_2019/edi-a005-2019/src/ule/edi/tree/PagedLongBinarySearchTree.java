@@ -0,0 +1,421 @@
+package ule.edi.tree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Árbol de búsqueda (AVL) de claves long guardado en un fichero por
+ * páginas, para conjuntos de datos mayores que la memoria.
+ *
+ * El fichero se divide en páginas de pageSize bytes. La primera guarda la
+ * cabecera (raíz, tamaño, lista libre y si está a medio escribir); las demás, registros de nodo de
+ * NODE_BYTES bytes como los de {@link OffHeapLongBinarySearchTree}. Las
+ * páginas se leen cuando se necesitan y se guardan en una caché de como
+ * mucho cachePages páginas; al llenarse se descarta la menos usada
+ * recientemente (LRU), escribiéndola antes en el fichero si se modificó.
+ *
+ * Los cambios sólo están completos en el fichero tras {@link #flush()} o
+ * {@link #close()}. Las páginas modificadas que se descartan antes se
+ * escriben en su sitio, encima de las que había, sin actualizar la
+ * cabecera; si el proceso termina sin flush() ni close(), el fichero
+ * queda inconsistente y no se puede recuperar: al abrirlo se lanza
+ * IOException. Para sobrevivir a caídas hay que reconstruirlo desde otra
+ * copia, por ejemplo un registro como el de {@link DurableBinarySearchTree}.
+ *
+ * Los errores de entrada/salida al leer o descartar páginas durante una
+ * operación se lanzan como {@link UncheckedIOException}.
+ *
+ * @see LongBinarySearchTree
+ */
+public class PagedLongBinarySearchTree extends AbstractLongBinarySearchTree implements Closeable {
+
+	//	Disposición de un nodo: clave, hijo izquierdo, hijo derecho y altura
+	//
+	private static final int KEY = 0;
+	private static final int LEFT = 8;
+	private static final int RIGHT = 12;
+	private static final int HEIGHT = 16;
+
+	/**
+	 * Bytes por nodo.
+	 */
+	public static final int NODE_BYTES = 20;
+
+	private static final long MAGIC = 0x4544495450414745L;	//	"EDITPAGE"
+
+	private static final int HEADER_BYTES = 32;
+
+	//	Posición en la cabecera de la marca de fichero a medio escribir
+	private static final int UNCLEAN = 28;
+
+	private static final class Page {
+
+		final long number;
+		final ByteBuffer data;
+		boolean dirty;
+
+		Page(long number, ByteBuffer data) {
+			this.number = number;
+			this.data = data;
+		}
+	}
+
+	private final FileChannel file;
+	private final int pageSize;
+	private final int nodesPerPage;
+	private final int cachePages;
+
+	//	Páginas en memoria, de la menos a la más usada recientemente
+	private final LinkedHashMap<Long, Page> cache;
+
+	//	Última página usada, para no buscar en la caché nodo a nodo
+	private Page last;
+
+	//	Si la cabecera ya avisa de que hay páginas escritas tras el último flush
+	private boolean unclean;
+
+	private long hits;
+	private long misses;
+	private long writes;
+
+	/**
+	 * Abre (o crea) un árbol en el fichero, con páginas de 4KB y una caché
+	 * de 1024 páginas.
+	 */
+	public PagedLongBinarySearchTree(Path path) throws IOException {
+		this(path, 4096, 1024);
+	}
+
+	/**
+	 * Abre (o crea) un árbol en el fichero.
+	 *
+	 * @param path fichero del árbol.
+	 * @param pageSize bytes por página; si el fichero ya existe, debe ser el
+	 * 			mismo con el que se creó.
+	 * @param cachePages páginas que se mantienen en memoria como mucho.
+	 */
+	public PagedLongBinarySearchTree(Path path, int pageSize, int cachePages) throws IOException {
+
+		if(pageSize < Math.max(NODE_BYTES, HEADER_BYTES) || cachePages < 1) {
+
+			throw new IllegalArgumentException("páginas de al menos " + HEADER_BYTES + " bytes y caché de al menos una página");
+		}
+
+		this.pageSize = pageSize;
+		this.nodesPerPage = pageSize / NODE_BYTES;
+		this.cachePages = cachePages;
+		this.cache = new LinkedHashMap<Long, Page>(16, 0.75f, true);
+		this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		if(file.size() > 0) {
+
+			readHeader();
+		}
+	}
+
+	private void readHeader() throws IOException {
+
+		ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES);
+
+		file.read(h, 0);
+		h.flip();
+
+		if(h.remaining() < HEADER_BYTES || h.getLong() != MAGIC) {
+
+			file.close();
+			throw new IOException("no es un fichero de árbol paginado");
+		}
+
+		if(h.getInt() != pageSize) {
+
+			file.close();
+			throw new IOException("el fichero usa otro tamaño de página");
+		}
+
+		int root = h.getInt();
+		int size = h.getInt();
+		int freeHead = h.getInt();
+		int slots = h.getInt();
+
+		if(h.getInt() != 0) {
+
+			file.close();
+			throw new IOException("el fichero no se cerró bien y no se puede recuperar");
+		}
+
+		restore(root, size, freeHead, slots);
+	}
+
+	private void writeHeader() throws IOException {
+
+		ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES);
+
+		h.putLong(MAGIC);
+		h.putInt(pageSize);
+		h.putInt(root);
+		h.putInt(size);
+		h.putInt(freeHead());
+		h.putInt(slots());
+		h.putInt(0);
+		h.flip();
+
+		while(h.hasRemaining()) {
+
+			file.write(h, h.position());
+		}
+	}
+
+	/**
+	 * Página del nodo n, de la caché o del fichero.
+	 */
+	private Page page(int n) {
+
+		long number = 1 + n / nodesPerPage;	//	la página 0 es la cabecera
+
+		if(last != null && last.number == number) {
+
+			hits++;
+			return last;
+		}
+
+		Page p = cache.get(number);
+
+		if(p != null) {
+
+			hits++;
+
+		}else {
+
+			misses++;
+
+			try {
+				if(cache.size() >= cachePages) {
+
+					evict();
+				}
+
+				p = new Page(number, ByteBuffer.allocate(pageSize));
+
+				//	Más allá del final del fichero, la página queda a ceros
+				int read = 0;
+
+				while(p.data.hasRemaining() && read >= 0) {
+
+					read = file.read(p.data, number * pageSize + p.data.position());
+				}
+
+				p.data.clear();
+				cache.put(number, p);
+
+			}catch (IOException e) {
+
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		last = p;
+		return p;
+	}
+
+	private void evict() throws IOException {
+
+		Iterator<Page> i = cache.values().iterator();
+		Page victim = i.next();
+
+		i.remove();
+
+		if(victim == last) {
+
+			last = null;
+		}
+
+		if(victim.dirty == true && unclean == false) {
+
+			markUnclean();
+		}
+
+		writeBack(victim);
+	}
+
+	/**
+	 * Marca en la cabecera, antes de escribir encima de ninguna página, que
+	 * el fichero deja de ser consistente hasta el próximo flush().
+	 */
+	private void markUnclean() throws IOException {
+
+		ByteBuffer h = ByteBuffer.allocate(4);
+
+		h.putInt(0, 1);
+
+		while(h.hasRemaining()) {
+
+			file.write(h, UNCLEAN + h.position());
+		}
+
+		file.force(false);
+		unclean = true;
+	}
+
+	private void writeBack(Page p) throws IOException {
+
+		if(p.dirty == true) {
+
+			ByteBuffer b = p.data.duplicate();
+
+			b.clear();
+
+			while(b.hasRemaining()) {
+
+				file.write(b, p.number * pageSize + b.position());
+			}
+
+			p.dirty = false;
+			writes++;
+		}
+	}
+
+	private int offset(int n) {
+		return (n % nodesPerPage) * NODE_BYTES;
+	}
+
+	private ByteBuffer forWrite(int n) {
+
+		Page p = page(n);
+
+		p.dirty = true;
+		return p.data;
+	}
+
+	@Override
+	protected long keyAt(int n) {
+		return page(n).data.getLong(offset(n) + KEY);
+	}
+
+	@Override
+	protected void setKeyAt(int n, long key) {
+		forWrite(n).putLong(offset(n) + KEY, key);
+	}
+
+	@Override
+	protected int leftOf(int n) {
+		return page(n).data.getInt(offset(n) + LEFT);
+	}
+
+	@Override
+	protected void setLeftOf(int n, int child) {
+		forWrite(n).putInt(offset(n) + LEFT, child);
+	}
+
+	@Override
+	protected int rightOf(int n) {
+		return page(n).data.getInt(offset(n) + RIGHT);
+	}
+
+	@Override
+	protected void setRightOf(int n, int child) {
+		forWrite(n).putInt(offset(n) + RIGHT, child);
+	}
+
+	@Override
+	protected int heightOf(int n) {
+		return page(n).data.get(offset(n) + HEIGHT);
+	}
+
+	@Override
+	protected void setHeightOf(int n, int height) {
+		forWrite(n).put(offset(n) + HEIGHT, (byte) height);
+	}
+
+	@Override
+	protected void ensureCapacity(int nodes) {
+		//	El fichero crece al escribir las páginas nuevas
+	}
+
+	/**
+	 * Escribe en el fichero las páginas modificadas y la cabecera, y lo
+	 * sincroniza con el disco.
+	 */
+	public void flush() throws IOException {
+
+		if(unclean == false) {
+
+			for (Page p : cache.values()) {
+
+				if(p.dirty == true) {
+
+					markUnclean();
+					break;
+				}
+			}
+		}
+
+		for (Page p : cache.values()) {
+
+			writeBack(p);
+		}
+
+		//	Las páginas tienen que estar en disco antes que la cabecera que
+		//	dice que el fichero está completo
+		file.force(false);
+		writeHeader();
+		file.force(true);
+		unclean = false;
+	}
+
+	/**
+	 * Guarda los cambios y cierra el fichero.
+	 */
+	@Override
+	public void close() throws IOException {
+
+		if(file.isOpen() == false) {
+
+			return;
+		}
+
+		try {
+			flush();
+
+		}finally {
+
+			file.close();
+			cache.clear();
+			last = null;
+		}
+	}
+
+	/**
+	 * Accesos a página resueltos en memoria.
+	 */
+	public long cacheHits() {
+		return hits;
+	}
+
+	/**
+	 * Accesos a página que tuvieron que leer del fichero.
+	 */
+	public long cacheMisses() {
+		return misses;
+	}
+
+	/**
+	 * Páginas modificadas escritas en el fichero.
+	 */
+	public long pageWrites() {
+		return writes;
+	}
+
+	/**
+	 * Fracción de accesos a página resueltos en memoria.
+	 */
+	public double hitRatio() {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+}
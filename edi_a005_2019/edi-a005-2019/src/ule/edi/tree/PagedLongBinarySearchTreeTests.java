@@ -0,0 +1,166 @@
+package ule.edi.tree;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class PagedLongBinarySearchTreeTests {
+
+	private Path file = null;
+
+	@Before
+	public void setupFile() throws IOException {
+
+		file = Files.createTempFile("paged", ".tree");
+		Files.delete(file);
+	}
+
+	@After
+	public void deleteFile() throws IOException {
+
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testSameAsLongBinarySearchTree() throws IOException {
+
+		LongBinarySearchTree expected = new LongBinarySearchTree();
+
+		try (PagedLongBinarySearchTree t = new PagedLongBinarySearchTree(file)) {
+
+			t.insert(1, 2, 3, 4, 5, 6, 7);
+			expected.insert(1, 2, 3, 4, 5, 6, 7);
+			t.withdraw(4);
+			expected.withdraw(4);
+			Assert.assertEquals(expected.toString(), t.toString());
+		}
+	}
+
+	@Test
+	public void testSmallCacheEvictsAndWritesBack() throws IOException {
+
+		Random rnd = new Random(5);
+		TreeSet<Long> expected = new TreeSet<Long>();
+
+		//	Páginas de 10 nodos y sólo 4 en memoria
+		try (PagedLongBinarySearchTree t = new PagedLongBinarySearchTree(file, 200, 4)) {
+
+			for (int i = 0; i < 5000; i++) {
+
+				long k = rnd.nextInt(3000);
+
+				if (rnd.nextInt(4) > 0) {
+
+					t.insert(k);
+					expected.add(k);
+
+				} else if (expected.remove(k)) {
+
+					t.withdraw(k);
+				}
+			}
+
+			Assert.assertEquals(expected.size(), t.size());
+			Assert.assertTrue(t.cacheMisses() > 0);
+			Assert.assertTrue(t.cacheHits() > t.cacheMisses());
+			Assert.assertTrue(t.pageWrites() > 0);
+
+			PrimitiveIterator.OfLong i = t.iteratorRange(1000, 2000);
+
+			for (Long e : expected.subSet(1000L, 2000L)) {
+
+				Assert.assertEquals(e.longValue(), i.nextLong());
+			}
+			Assert.assertFalse(i.hasNext());
+
+			//	Deja al menos un hueco en la lista libre
+			t.withdraw(expected.pollFirst());
+		}
+
+		//	Al reabrir se lee todo del fichero
+		try (PagedLongBinarySearchTree t = new PagedLongBinarySearchTree(file, 200, 4)) {
+
+			Assert.assertEquals(expected.size(), t.size());
+			Assert.assertEquals(expected.first().longValue(), t.first());
+			Assert.assertTrue(t.contains(expected.last()));
+			Assert.assertEquals(0, t.pageWrites());
+
+			long[] rx = t.toArray();
+			int n = 0;
+
+			for (Long e : expected) {
+
+				Assert.assertEquals(e.longValue(), rx[n++]);
+			}
+
+			//	La lista libre también se recupera: se reutiliza un hueco
+			int slots = t.slots();
+
+			Assert.assertTrue(slots > t.size());
+			t.insert(-1);
+			Assert.assertTrue(t.contains(-1));
+			Assert.assertEquals(slots, t.slots());
+		}
+	}
+
+	@Test
+	public void testUncleanFileRejected() throws IOException {
+
+		PagedLongBinarySearchTree t = new PagedLongBinarySearchTree(file, 200, 2);
+
+		for (long i = 0; i < 100; i++) {
+
+			t.insert(i);
+		}
+
+		//	Se han descartado páginas modificadas y no se llega a cerrar
+		Assert.assertTrue(t.pageWrites() > 0);
+
+		try {
+			new PagedLongBinarySearchTree(file, 200, 2).close();
+			Assert.fail();
+		} catch (IOException e) {
+		}
+
+		//	Tras flush() vuelve a ser válido
+		t.flush();
+
+		try (PagedLongBinarySearchTree rx = new PagedLongBinarySearchTree(file, 200, 2)) {
+
+			Assert.assertEquals(100, rx.size());
+		}
+
+		t.close();
+	}
+
+	@Test
+	public void testBulkLoadAndReopen() throws IOException {
+
+		try (PagedLongBinarySearchTree t = new PagedLongBinarySearchTree(file, 4096, 2)) {
+
+			t.bulkLoad(5, 4, 3, 2, 1);
+		}
+
+		try (PagedLongBinarySearchTree t = new PagedLongBinarySearchTree(file, 4096, 2)) {
+
+			Assert.assertEquals("{3, {1, ∅, {2, ∅, ∅}}, {4, ∅, {5, ∅, ∅}}}", t.toString());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testWrongPageSize() throws IOException {
+
+		new PagedLongBinarySearchTree(file, 4096, 2).close();
+		new PagedLongBinarySearchTree(file, 1024, 2).close();
+	}
+}
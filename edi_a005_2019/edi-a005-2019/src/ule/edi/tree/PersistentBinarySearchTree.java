@@ -0,0 +1,355 @@
+package ule.edi.tree;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Árbol binario de búsqueda persistente (inmutable).
+ *
+ * Ninguna operación modifica el árbol: {@link #insert(Comparable)} y
+ * {@link #withdraw(Comparable)} devuelven un árbol nuevo que comparte con
+ * el original todos los sub-árboles que no cambian, y sólo copia los nodos
+ * del camino desde la raíz hasta el elemento. Así, quedarse con una
+ * "foto" del árbol cuesta O(1) (basta con guardar la referencia) y los
+ * lectores pueden recorrerla mientras otros siguen generando versiones.
+ *
+ * Para que ese camino sea corto, el árbol se mantiene equilibrado como un
+ * AVL, de forma que cada actualización crea O(log n) nodos.
+ *
+ * toString(), render() e iteratorInorden() se comportan como en
+ * {@link BinarySearchTreeADTImpl}. Como los nodos se comparten entre
+ * versiones, no admiten etiquetas ni cambios de contenido.
+ *
+ * @param <T>
+ *            tipo de la información en cada nodo, comparable.
+ */
+public final class PersistentBinarySearchTree<T extends Comparable<? super T>> extends
+		AbstractBinaryTreeADT<T> {
+
+	//	Árbol vacío, compartido por todas las versiones
+	//
+	@SuppressWarnings("rawtypes")
+	private static final PersistentBinarySearchTree EMPTY = new PersistentBinarySearchTree();
+
+	private final int size;
+
+	private final int treeHeight;
+
+	private PersistentBinarySearchTree() {
+
+		this.content = null;
+		this.leftSubtree = null;
+		this.rightSubtree = null;
+		this.tags = Collections.emptyMap();
+		this.size = 0;
+		this.treeHeight = 0;
+	}
+
+	private PersistentBinarySearchTree(T content, PersistentBinarySearchTree<T> left, PersistentBinarySearchTree<T> right) {
+
+		this.content = content;
+		this.leftSubtree = left;
+		this.rightSubtree = right;
+		this.tags = Collections.emptyMap();
+		this.size = 1 + left.size + right.size;
+		this.treeHeight = 1 + Math.max(left.treeHeight, right.treeHeight);
+	}
+
+	/**
+	 * Devuelve el árbol vacío.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Comparable<? super T>> PersistentBinarySearchTree<T> empty() {
+		return EMPTY;
+	}
+
+	private PersistentBinarySearchTree<T> left() {
+		return (PersistentBinarySearchTree<T>) leftSubtree;
+	}
+
+	private PersistentBinarySearchTree<T> right() {
+		return (PersistentBinarySearchTree<T>) rightSubtree;
+	}
+
+	/**
+	 * Número de elementos en el árbol.
+	 */
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int height() {
+		return treeHeight;
+	}
+
+	/**
+	 * Los nodos se comparten entre versiones, no se pueden modificar.
+	 *
+	 * @throws UnsupportedOperationException siempre
+	 */
+	@Override
+	public void setContent(T content) {
+		throw new UnsupportedOperationException("un árbol persistente no se modifica");
+	}
+
+	/**
+	 * Los nodos se comparten entre versiones, no admiten etiquetas.
+	 *
+	 * @throws UnsupportedOperationException siempre
+	 */
+	@Override
+	public void setTag(String k, Object v) {
+		throw new UnsupportedOperationException("un árbol persistente no admite etiquetas");
+	}
+
+	/**
+	 * Indica si el elemento está en el árbol.
+	 *
+	 * @param element elemento a buscar.
+	 * @return <tt>true</tt> si el árbol contiene al elemento dado
+	 */
+	public boolean contains(T element) {
+
+		PersistentBinarySearchTree<T> node = this;
+
+		while(node.content != null) {
+
+			int cmp = node.content.compareTo(element);
+
+			if(cmp == 0) {
+
+				return true;
+			}
+
+			node = cmp < 0 ? node.right() : node.left();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Devuelve un árbol con todos los elementos de éste más los dados.
+	 *
+	 * O todos o ninguno; si alguno es 'null', se devuelve este mismo árbol.
+	 *
+	 * @param elements elementos a insertar.
+	 * @return nueva versión del árbol.
+	 */
+	@SafeVarargs
+	public final PersistentBinarySearchTree<T> insert(T ... elements) {
+
+		for (T t : elements) {
+
+			if(t == null) {
+
+				return this;
+			}
+		}
+
+		PersistentBinarySearchTree<T> rx = this;
+
+		for (T t : elements) {
+
+			rx = rx.insert(t);
+		}
+
+		return rx;
+	}
+
+	/**
+	 * Devuelve un árbol con los elementos de éste más el dado.
+	 *
+	 * No se permiten elementos null. Si el elemento ya existe, se devuelve
+	 * este mismo árbol.
+	 *
+	 * @param element valor a insertar.
+	 * @return nueva versión del árbol.
+	 */
+	public PersistentBinarySearchTree<T> insert(T element) {
+
+		if(element == null) {
+
+			throw new NullPointerException("no se permiten elementos null");
+		}
+
+		if(isEmpty()) {
+
+			return new PersistentBinarySearchTree<T>(element, empty(), empty());
+		}
+
+		int cmp = content.compareTo(element);
+
+		if(cmp < 0) {
+
+			PersistentBinarySearchTree<T> r = right().insert(element);
+
+			return r == rightSubtree ? this : balance(content, left(), r);
+
+		}else if(cmp > 0) {
+
+			PersistentBinarySearchTree<T> l = left().insert(element);
+
+			return l == leftSubtree ? this : balance(content, l, right());
+
+		}else {
+
+			return this;
+		}
+	}
+
+	/**
+	 * Devuelve un árbol con los elementos de éste menos el dado.
+	 *
+	 * Si el elemento tiene dos hijos, se sustituye por el mayor de sus menores.
+	 *
+	 * @param element valor a eliminar.
+	 * @return nueva versión del árbol.
+	 * @throws NoSuchElementException si el elemento no está en el árbol
+	 */
+	public PersistentBinarySearchTree<T> withdraw(T element) {
+
+		if(isEmpty()) {
+
+			throw new NoSuchElementException();
+		}
+
+		int cmp = content.compareTo(element);
+
+		if(cmp < 0) {
+
+			return balance(content, left(), right().withdraw(element));
+
+		}else if(cmp > 0) {
+
+			return balance(content, left().withdraw(element), right());
+
+		}else if(left().isEmpty()) {
+
+			return right();
+
+		}else if(right().isEmpty()) {
+
+			return left();
+
+		}else {
+
+			PersistentBinarySearchTree<T> aux = left();
+
+			while(aux.right().isEmpty() == false) {
+
+				aux = aux.right();
+			}
+
+			return balance(aux.content, left().withdraw(aux.content), right());
+		}
+	}
+
+	/**
+	 * Crea el nodo (content, l, r), rotando si las alturas de l y r
+	 * difieren en más de 1.
+	 */
+	private static <T extends Comparable<? super T>> PersistentBinarySearchTree<T> balance(T content, PersistentBinarySearchTree<T> l, PersistentBinarySearchTree<T> r) {
+
+		if(l.treeHeight > r.treeHeight + 1) { //cargado a la izquierda
+
+			if(l.left().treeHeight >= l.right().treeHeight) {
+
+				return node(l.content, l.left(), node(content, l.right(), r));
+
+			}else {
+
+				PersistentBinarySearchTree<T> lr = l.right();
+
+				return node(lr.content, node(l.content, l.left(), lr.left()), node(content, lr.right(), r));
+			}
+
+		}else if(r.treeHeight > l.treeHeight + 1) { //cargado a la derecha
+
+			if(r.right().treeHeight >= r.left().treeHeight) {
+
+				return node(r.content, node(content, l, r.left()), r.right());
+
+			}else {
+
+				PersistentBinarySearchTree<T> rl = r.left();
+
+				return node(rl.content, node(content, l, rl.left()), node(r.content, rl.right(), r.right()));
+			}
+		}
+
+		return node(content, l, r);
+	}
+
+	private static <T extends Comparable<? super T>> PersistentBinarySearchTree<T> node(T content, PersistentBinarySearchTree<T> l, PersistentBinarySearchTree<T> r) {
+		return new PersistentBinarySearchTree<T>(content, l, r);
+	}
+
+	/**
+	 * Array de versiones de la longitud dada.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <T extends Comparable<? super T>> PersistentBinarySearchTree<T>[] newArray(int length) {
+		return new PersistentBinarySearchTree[length];
+	}
+
+	/**
+	 * Devuelve un iterador que recorre los elementos del arbol en inorden
+	 * (de menor a mayor). Como el árbol no cambia, el recorrido siempre es
+	 * el de esta versión, aunque se sigan creando otras.
+	 *
+	 * @return iterador para el recorrido inorden o ascendente
+	 */
+	public Iterator<T> iteratorInorden() {
+
+		return new IteratorInorden();
+	}
+
+	private class IteratorInorden implements Iterator<T> {
+
+		private final PersistentBinarySearchTree<T>[] pending;
+		private int top;
+
+		IteratorInorden() {
+
+			pending = newArray(Math.max(treeHeight, 1));
+			pushLeftPath(PersistentBinarySearchTree.this);
+		}
+
+		private void pushLeftPath(PersistentBinarySearchTree<T> node) {
+
+			while(node.content != null) {
+
+				pending[top++] = node;
+				node = node.left();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+
+			return top > 0;
+		}
+
+		@Override
+		public T next() {
+
+			if(top == 0) {
+
+				throw new NoSuchElementException();
+			}
+
+			PersistentBinarySearchTree<T> node = pending[--top];
+			pushLeftPath(node.right());
+
+			return node.content;
+		}
+
+		@Override
+		public void remove() {
+
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package ule.edi.tree;
+
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class PersistentBinarySearchTreeTests {
+
+	private PersistentBinarySearchTree<Integer> TE = null;
+
+	/*
+	* 4
+	* |  2
+	* |  |  1
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  3
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  6
+	* |  |  5
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  7
+	* |  |  |  ∅
+	* |  |  |  ∅
+	*/
+	private PersistentBinarySearchTree<Integer> T7 = null;
+
+	@Before
+	public void setupPersistents() {
+
+		TE = PersistentBinarySearchTree.empty();
+
+		T7 = TE.insert(1, 2, 3, 4, 5, 6, 7);
+		Assert.assertEquals("{4, {2, {1, ∅, ∅}, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", T7.toString());
+	}
+
+	@Test
+	public void testVersionsAreIndependent() {
+
+		PersistentBinarySearchTree<Integer> T8 = T7.insert(8);
+		PersistentBinarySearchTree<Integer> T6 = T7.withdraw(1);
+
+		Assert.assertEquals("∅", TE.toString());
+		Assert.assertEquals("{4, {2, {1, ∅, ∅}, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", T7.toString());
+		Assert.assertEquals("{4, {2, {1, ∅, ∅}, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, {8, ∅, ∅}}}}", T8.toString());
+		Assert.assertEquals("{4, {2, ∅, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", T6.toString());
+
+		Assert.assertEquals(7, T7.size());
+		Assert.assertEquals(8, T8.size());
+		Assert.assertEquals(6, T6.size());
+		Assert.assertTrue(T8.contains(8));
+		Assert.assertFalse(T7.contains(8));
+	}
+
+	@Test
+	public void testUntouchedSubtreesAreShared() {
+
+		PersistentBinarySearchTree<Integer> T8 = T7.insert(8);
+
+		Assert.assertNotSame(T7, T8);
+		Assert.assertSame(T7.getSubtree(0), T8.getSubtree(0));
+		Assert.assertNotSame(T7.getSubtree(1), T8.getSubtree(1));
+		Assert.assertSame(T7.getSubtree(1).getSubtree(0), T8.getSubtree(1).getSubtree(0));
+	}
+
+	@Test
+	public void testInsertRepeatedReturnsSameTree() {
+
+		Assert.assertSame(T7, T7.insert(4));
+		Assert.assertSame(T7, T7.insert(5, null));
+	}
+
+	@Test
+	public void testInsertSortedStaysBalanced() {
+
+		PersistentBinarySearchTree<Integer> t = TE;
+
+		for (int i = 0; i < 1023; i++) {
+
+			t = t.insert(i);
+		}
+		Assert.assertEquals(10, t.height());
+		Assert.assertEquals(1023, t.size());
+	}
+
+	@Test
+	public void testWithdraw() {
+
+		Assert.assertEquals("{3, {2, {1, ∅, ∅}, ∅}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", T7.withdraw(4).toString());
+		Assert.assertEquals("{6, {4, ∅, {5, ∅, ∅}}, {7, ∅, ∅}}", T7.withdraw(1).withdraw(3).withdraw(2).toString());
+
+		PersistentBinarySearchTree<Integer> t = T7;
+
+		for (int i = 1; i <= 7; i++) {
+
+			t = t.withdraw(i);
+		}
+		Assert.assertSame(TE, t);
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testWithdrawNotFound() {
+
+		T7.withdraw(8);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSetContentNotAllowed() {
+
+		T7.setContent(9);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSetTagNotAllowed() {
+
+		T7.setTag("key", 1);
+	}
+
+	@Test
+	public void testRender() {
+
+		Assert.assertEquals("2\n|  1\n|  |  ∅\n|  |  ∅\n|  3\n|  |  ∅\n|  |  ∅\n", TE.insert(1, 2, 3).render());
+	}
+
+	@Test
+	public void testInorderIteratorIsSnapshot() {
+
+		Iterator<Integer> i = T7.iteratorInorden();
+		Assert.assertEquals(1, i.next().intValue());
+
+		T7.withdraw(2).insert(0);
+
+		for (int n = 2; n <= 7; n++) {
+
+			Assert.assertTrue(i.hasNext());
+			Assert.assertEquals(n, i.next().intValue());
+		}
+		Assert.assertFalse(i.hasNext());
+	}
+}
@@ -0,0 +1,211 @@
+package ule.edi.tree;
+
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class PrimitiveBinarySearchTreeTests {
+
+	private LongBinarySearchTree TL = null;
+
+	private IntBinarySearchTree TI = null;
+
+	@Before
+	public void setupTrees() {
+
+		TL = new LongBinarySearchTree();
+		TL.insert(1, 2, 3, 4, 5, 6, 7);
+		Assert.assertEquals("{4, {2, {1, ∅, ∅}, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", TL.toString());
+
+		TI = new IntBinarySearchTree(2);
+	}
+
+	private String toString(PrimitiveIterator.OfLong i) {
+
+		StringBuilder sb = new StringBuilder();
+
+		while (i.hasNext()) {
+
+			sb.append(sb.length() == 0 ? "" : " ").append(i.nextLong());
+		}
+		return sb.toString();
+	}
+
+	private String toString(PrimitiveIterator.OfInt i) {
+
+		StringBuilder sb = new StringBuilder();
+
+		while (i.hasNext()) {
+
+			sb.append(sb.length() == 0 ? "" : " ").append(i.nextInt());
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testInsertContainsWithdraw() {
+
+		TL.insert(4);
+		Assert.assertEquals(7, TL.size());
+		Assert.assertTrue(TL.contains(7));
+		Assert.assertFalse(TL.contains(8));
+
+		TL.withdraw(4);
+		Assert.assertEquals("{3, {2, {1, ∅, ∅}, ∅}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", TL.toString());
+		TL.withdraw(1);
+		TL.withdraw(2);
+		Assert.assertEquals("{6, {3, ∅, {5, ∅, ∅}}, {7, ∅, ∅}}", TL.toString());
+		Assert.assertEquals(4, TL.size());
+		Assert.assertEquals(3, TL.height());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testWithdrawNotFound() {
+
+		TL.withdraw(8);
+	}
+
+	@Test
+	public void testExtremeKeys() {
+
+		TL.insert(Long.MIN_VALUE, Long.MAX_VALUE);
+		Assert.assertEquals(Long.MIN_VALUE, TL.first());
+		Assert.assertEquals(Long.MAX_VALUE, TL.last());
+
+		TI.insert(Integer.MAX_VALUE, Integer.MIN_VALUE, 0);
+		Assert.assertEquals(Integer.MIN_VALUE, TI.first());
+		Assert.assertEquals(Integer.MAX_VALUE, TI.last());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testFirstEmpty() {
+
+		TI.first();
+	}
+
+	@Test
+	public void testIterators() {
+
+		Assert.assertEquals("1 2 3 4 5 6 7", toString(TL.iteratorInorden()));
+		Assert.assertEquals("7 6 5 4 3 2 1", toString(TL.descendingIterator()));
+		Assert.assertEquals("3 4 5", toString(TL.iteratorRange(3, 6)));
+		Assert.assertEquals("5 4 3", toString(TL.descendingIterator(3, 6)));
+		Assert.assertEquals("", toString(TL.iteratorRange(8, 10)));
+
+		Assert.assertEquals("", toString(TI.iteratorInorden()));
+		TI.insert(30, 10, 20);
+		Assert.assertEquals("10 20", toString(TI.iteratorRange(0, 25)));
+	}
+
+	@Test
+	public void testIteratorOutlivesGrowth() {
+
+		TI.insert(1);
+		PrimitiveIterator.OfInt i = TI.iteratorInorden();
+
+		for (int k = 2; k <= 100; k++) {
+
+			TI.insert(k);
+		}
+		Assert.assertEquals(7, TI.height());
+
+		//	La pila se creó con altura 1; el recorrido no debe desbordarla
+		int last = i.nextInt();
+		Assert.assertEquals(1, last);
+
+		while (i.hasNext()) {
+
+			int k = i.nextInt();
+			Assert.assertTrue(k > last);
+			last = k;
+		}
+		Assert.assertArrayEquals(TI.toArray(), toArray(TI.iteratorInorden(), 100));
+	}
+
+	private int[] toArray(PrimitiveIterator.OfInt i, int n) {
+
+		int[] rx = new int[n];
+
+		for (int k = 0; k < n; k++) {
+
+			rx[k] = i.nextInt();
+		}
+		Assert.assertFalse(i.hasNext());
+		return rx;
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testIteratorException() {
+
+		PrimitiveIterator.OfInt i = TI.iteratorInorden();
+		Assert.assertFalse(i.hasNext());
+		i.nextInt();
+	}
+
+	@Test
+	public void testBulkLoad() {
+
+		TI.bulkLoad(5, 4, 3, 2, 1);
+		Assert.assertEquals("{3, {1, ∅, {2, ∅, ∅}}, {4, ∅, {5, ∅, ∅}}}", TI.toString());
+
+		TI.bulkLoad(4, 6, 6, 7);
+		Assert.assertEquals("{4, {2, {1, ∅, ∅}, {3, ∅, ∅}}, {6, {5, ∅, ∅}, {7, ∅, ∅}}}", TI.toString());
+		Assert.assertEquals(7, TI.size());
+
+		TI.insert(8);
+		TI.withdraw(1);
+		Assert.assertArrayEquals(new int[] { 2, 3, 4, 5, 6, 7, 8 }, TI.toArray());
+	}
+
+	@Test
+	public void testSortedInsertStaysBalanced() {
+
+		TL = new LongBinarySearchTree();
+
+		for (long i = 0; i < 1023; i++) {
+
+			TL.insert(i);
+		}
+		Assert.assertEquals(10, TL.height());
+	}
+
+	@Test
+	public void testAgainstTreeSet() {
+
+		Random rnd = new Random(7);
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+
+		for (int i = 0; i < 20000; i++) {
+
+			int k = rnd.nextInt(2000);
+
+			if (rnd.nextBoolean()) {
+
+				TI.insert(k);
+				expected.add(k);
+
+			} else if (expected.remove(k)) {
+
+				TI.withdraw(k);
+			}
+		}
+
+		int[] rx = new int[expected.size()];
+		int n = 0;
+
+		for (Integer e : expected) {
+
+			rx[n++] = e;
+		}
+		Assert.assertArrayEquals(rx, TI.toArray());
+		Assert.assertEquals(expected.size(), TI.size());
+		Assert.assertTrue(TI.height() <= 1.45 * Math.log(expected.size() + 2) / Math.log(2));
+	}
+}
@@ -0,0 +1,78 @@
+package ule.edi.tree;
+
+/**
+ * Límites para {@link AbstractTreeADT#render(Appendable, RenderOptions)}.
+ *
+ * Es inmutable: cada método devuelve unas opciones nuevas, así que se
+ * pueden encadenar a partir de {@link #DEFAULT}:
+ *
+ * 		RenderOptions.DEFAULT.maxDepth(5).maxNodes(1000).maxTags(2)
+ *
+ * Lo que se omite por un límite se marca con {@link #TRUNCATED_MARK}.
+ */
+public final class RenderOptions {
+
+	/**
+	 * Marca de lo que no se muestra por algún límite.
+	 */
+	public static final String TRUNCATED_MARK = "...";
+
+	/**
+	 * Sin límites: la misma salida que {@link AbstractTreeADT#render()}.
+	 */
+	public static final RenderOptions DEFAULT = new RenderOptions(Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+	private final int maxDepth;
+
+	private final long maxNodes;
+
+	private final int maxTags;
+
+	private RenderOptions(int maxDepth, long maxNodes, int maxTags) {
+
+		if(maxDepth < 0 || maxNodes < 0 || maxTags < 0) {
+
+			throw new IllegalArgumentException("los límites no pueden ser negativos");
+		}
+
+		this.maxDepth = maxDepth;
+		this.maxNodes = maxNodes;
+		this.maxTags = maxTags;
+	}
+
+	/**
+	 * Profundidad máxima que se muestra (la raíz está a profundidad 0); los
+	 * sub-árboles más profundos se resumen en una línea con la marca.
+	 */
+	public RenderOptions maxDepth(int maxDepth) {
+		return new RenderOptions(maxDepth, maxNodes, maxTags);
+	}
+
+	/**
+	 * Número máximo de nodos no vacíos que se muestran; al llegar a él se
+	 * escribe una línea con la marca y se termina.
+	 */
+	public RenderOptions maxNodes(long maxNodes) {
+		return new RenderOptions(maxDepth, maxNodes, maxTags);
+	}
+
+	/**
+	 * Número máximo de etiquetas que se muestran en cada nodo (las primeras
+	 * por orden de clave).
+	 */
+	public RenderOptions maxTags(int maxTags) {
+		return new RenderOptions(maxDepth, maxNodes, maxTags);
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public long getMaxNodes() {
+		return maxNodes;
+	}
+
+	public int getMaxTags() {
+		return maxTags;
+	}
+}
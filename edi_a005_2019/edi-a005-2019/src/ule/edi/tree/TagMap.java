@@ -0,0 +1,319 @@
+package ule.edi.tree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Mapa de etiquetas de un nodo, pensado para tener muy pocas entradas.
+ *
+ * Guarda claves y valores en dos arrays paralelos, que se crean con la
+ * primera etiqueta con sitio para tres, y busca recorriéndolos; con tan
+ * pocas entradas es más rápido y ocupa mucho menos que un HashMap. Admite
+ * cualquier número de etiquetas, pero cada operación es lineal en su número.
+ *
+ * Las claves no pueden ser null; los valores sí.
+ */
+final class TagMap extends AbstractMap<String, Object> {
+
+	private static final int INITIAL_CAPACITY = 3;
+
+	//	Se crean con la primera etiqueta
+	private String[] keys;
+
+	private Object[] values;
+
+	private int size;
+
+	//	Cambios de estructura, para detectar modificaciones al iterar
+	private int modCount;
+
+	private int indexOf(Object key) {
+
+		//	Las claves suelen ser literales, así que se prueba antes la identidad
+		for (int i = 0; i < size; i++) {
+
+			if(keys[i] == key) {
+
+				return i;
+			}
+		}
+
+		if(key != null) {
+
+			for (int i = 0; i < size; i++) {
+
+				if(key.equals(keys[i])) {
+
+					return i;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+
+		int i = indexOf(key);
+
+		return i < 0 ? null : values[i];
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+
+		if(key == null) {
+
+			throw new NullPointerException("las etiquetas no admiten claves null");
+		}
+
+		int i = indexOf(key);
+
+		if(i >= 0) {
+
+			Object old = values[i];
+
+			values[i] = value;
+			return old;
+		}
+
+		if(keys == null) {
+
+			keys = new String[INITIAL_CAPACITY];
+			values = new Object[INITIAL_CAPACITY];
+
+		}else if(size == keys.length) {
+
+			int capacity = size + (size >> 1) + 1;
+
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		keys[size] = key;
+		values[size] = value;
+		size++;
+		modCount++;
+
+		return null;
+	}
+
+	@Override
+	public Object remove(Object key) {
+
+		int i = indexOf(key);
+
+		if(i < 0) {
+
+			return null;
+		}
+
+		Object old = values[i];
+
+		removeAt(i);
+		return old;
+	}
+
+	private void removeAt(int i) {
+
+		//	El orden no importa: la última ocupa el hueco
+		size--;
+		keys[i] = keys[size];
+		values[i] = values[size];
+		keys[size] = null;
+		values[size] = null;
+		modCount++;
+	}
+
+	@Override
+	public void clear() {
+
+		if(size == 0) {
+
+			return;
+		}
+
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Elimina, sin crear nada nuevo, las etiquetas cuya clave no esté entre
+	 * las dadas.
+	 */
+	void retainKeys(String ... keep) {
+
+		int i = 0;
+
+		while(i < size) {
+
+			if(contains(keep, keys[i]) == false) {
+
+				removeAt(i);
+
+			}else {
+
+				i++;
+			}
+		}
+	}
+
+	private static boolean contains(String[] keep, String key) {
+
+		for (int i = 0; i < keep.length; i++) {
+
+			if(key.equals(keep[i])) {
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+
+		return new AbstractSet<Map.Entry<String, Object>>() {
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public void clear() {
+				TagMap.this.clear();
+			}
+
+			@Override
+			public Iterator<Map.Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+		};
+	}
+
+	private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+		private int next;
+		private int last = -1;
+		private int expected = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() {
+
+			if(expected != modCount) {
+
+				throw new ConcurrentModificationException();
+			}
+
+			if(next >= size) {
+
+				throw new NoSuchElementException();
+			}
+
+			last = next++;
+			return new Entry(last);
+		}
+
+		@Override
+		public void remove() {
+
+			if(last < 0) {
+
+				throw new IllegalStateException();
+			}
+
+			if(expected != modCount) {
+
+				throw new ConcurrentModificationException();
+			}
+
+			//	La última pasa al hueco y aún no se ha visitado
+			removeAt(last);
+			next = last;
+			last = -1;
+			expected = modCount;
+		}
+	}
+
+	private final class Entry implements Map.Entry<String, Object> {
+
+		private final int index;
+
+		Entry(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public String getKey() {
+			return keys[index];
+		}
+
+		@Override
+		public Object getValue() {
+			return values[index];
+		}
+
+		@Override
+		public Object setValue(Object value) {
+
+			Object old = values[index];
+
+			values[index] = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+
+			if(o instanceof Map.Entry == false) {
+
+				return false;
+			}
+
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+
+			return getKey().equals(e.getKey()) && (getValue() == null ? e.getValue() == null : getValue().equals(e.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ (getValue() == null ? 0 : getValue().hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+}
@@ -0,0 +1,706 @@
+package ule.edi.tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Etiquetas de los nodos de un árbol guardadas por columnas.
+ *
+ * En lugar de un mapa en cada nodo, hay una columna por clave de etiqueta
+ * con el valor de cada nodo etiquetado. Los nodos se identifican por
+ * identidad (no por su contenido) y reciben un número la primera vez que
+ * se etiquetan, que es su posición en todas las columnas.
+ *
+ * Las columnas son de tipo primitivo mientras todos sus valores sean
+ * Integer, Long o Double (y los devuelven con ese mismo tipo); con el
+ * primer valor de otro tipo la columna pasa a guardar objetos.
+ *
+ * Cada columna puede tener además un índice ordenado por valor
+ * ({@link #createIndex(String)}); con él, las búsquedas por rango
+ * cuestan O(log n + m), siendo m el número de nodos encontrados. Sin
+ * índice se recorre la columna. Los valores de una columna con índice
+ * deben ser comparables entre sí y no null.
+ *
+ * Como las etiquetas van con el nodo, si el árbol mueve contenidos entre
+ * nodos (al eliminar o al equilibrar) las etiquetas no los siguen.
+ *
+ * El almacén es una copia aparte: no cambia las etiquetas de los nodos
+ * ({@link #of(TreeADT)} sólo las copia) ni se entera de los cambios del
+ * árbol. Guarda una referencia a cada nodo etiquetado hasta que se olvida
+ * con {@link #forget(TreeADT)}, aunque le quite todas sus etiquetas; los
+ * nodos que se eliminan del árbol hay que olvidarlos para que no sigan en
+ * memoria ni apareciendo en las búsquedas.
+ *
+ * @param <T> tipo de la información en cada nodo.
+ */
+public class TagStore<T> {
+
+	//	Tipos de columna
+	private static final byte INT = 0;
+	private static final byte LONG = 1;
+	private static final byte DOUBLE = 2;
+	private static final byte OBJECT = 3;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Entrada de un índice: un valor y el nodo que lo tiene, ordenadas por
+	 * valor y, a igual valor, por nodo.
+	 */
+	private static final class IndexEntry implements Comparable<IndexEntry> {
+
+		final Comparable<Object> value;
+		final int id;
+
+		@SuppressWarnings("unchecked")
+		IndexEntry(Object value, int id) {
+			this.value = (Comparable<Object>) value;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(IndexEntry o) {
+
+			int c = value.compareTo(o.value);
+
+			return c != 0 ? c : Integer.compare(id, o.id);
+		}
+	}
+
+	/**
+	 * Valores de una clave de etiqueta, por número de nodo.
+	 */
+	private static final class Column {
+
+		byte type;
+
+		int[] ints;
+		long[] longs;
+		double[] doubles;
+		Object[] objects;
+
+		final BitSet present = new BitSet();
+		int count;
+
+		NavigableSet<IndexEntry> index;
+
+		Column(Object first) {
+
+			if(first instanceof Integer) {
+
+				type = INT;
+				ints = new int[INITIAL_CAPACITY];
+
+			}else if(first instanceof Long) {
+
+				type = LONG;
+				longs = new long[INITIAL_CAPACITY];
+
+			}else if(first instanceof Double) {
+
+				type = DOUBLE;
+				doubles = new double[INITIAL_CAPACITY];
+
+			}else {
+
+				type = OBJECT;
+				objects = new Object[INITIAL_CAPACITY];
+			}
+		}
+
+		Object get(int id) {
+
+			if(present.get(id) == false) {
+
+				return null;
+			}
+
+			switch(type) {
+
+			case INT:
+				return ints[id];
+
+			case LONG:
+				return longs[id];
+
+			case DOUBLE:
+				return doubles[id];
+
+			default:
+				return objects[id];
+			}
+		}
+
+		/**
+		 * Si el valor se puede guardar en esta columna sin cambiar su tipo.
+		 */
+		boolean accepts(Object value) {
+
+			switch(type) {
+
+			case INT:
+				return value instanceof Integer;
+
+			case LONG:
+				return value instanceof Long;
+
+			case DOUBLE:
+				return value instanceof Double;
+
+			default:
+				return true;
+			}
+		}
+
+		/**
+		 * Pasa a guardar objetos, conservando los valores.
+		 */
+		void toObjects() {
+
+			Object[] o = new Object[capacity()];
+
+			for (int id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+
+				o[id] = get(id);
+			}
+
+			type = OBJECT;
+			objects = o;
+			ints = null;
+			longs = null;
+			doubles = null;
+		}
+
+		int capacity() {
+
+			switch(type) {
+
+			case INT:
+				return ints.length;
+
+			case LONG:
+				return longs.length;
+
+			case DOUBLE:
+				return doubles.length;
+
+			default:
+				return objects.length;
+			}
+		}
+
+		void ensureCapacity(int id) {
+
+			int capacity = capacity();
+
+			if(id < capacity) {
+
+				return;
+			}
+
+			capacity = Math.max(id + 1, capacity + (capacity >> 1));
+
+			switch(type) {
+
+			case INT:
+				ints = Arrays.copyOf(ints, capacity);
+				break;
+
+			case LONG:
+				longs = Arrays.copyOf(longs, capacity);
+				break;
+
+			case DOUBLE:
+				doubles = Arrays.copyOf(doubles, capacity);
+				break;
+
+			default:
+				objects = Arrays.copyOf(objects, capacity);
+			}
+		}
+
+		void set(int id, Object value) {
+
+			if(accepts(value) == false) {
+
+				toObjects();
+			}
+
+			ensureCapacity(id);
+
+			if(index != null && present.get(id) == true) {
+
+				index.remove(new IndexEntry(get(id), id));
+			}
+
+			switch(type) {
+
+			case INT:
+				ints[id] = (Integer) value;
+				break;
+
+			case LONG:
+				longs[id] = (Long) value;
+				break;
+
+			case DOUBLE:
+				doubles[id] = (Double) value;
+				break;
+
+			default:
+				objects[id] = value;
+			}
+
+			if(present.get(id) == false) {
+
+				present.set(id);
+				count++;
+			}
+
+			if(index != null) {
+
+				index.add(new IndexEntry(value, id));
+			}
+		}
+
+		void remove(int id) {
+
+			if(present.get(id) == false) {
+
+				return;
+			}
+
+			if(index != null) {
+
+				index.remove(new IndexEntry(get(id), id));
+			}
+
+			if(type == OBJECT) {
+
+				objects[id] = null;
+			}
+
+			present.clear(id);
+			count--;
+		}
+
+		void buildIndex() {
+
+			index = new TreeSet<IndexEntry>();
+
+			for (int id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+
+				index.add(new IndexEntry(get(id), id));
+			}
+		}
+	}
+
+	//	Número de cada nodo etiquetado, y nodo de cada número
+	private final IdentityHashMap<TreeADT<T>, Integer> ids = new IdentityHashMap<TreeADT<T>, Integer>();
+	private final List<TreeADT<T>> nodes = new ArrayList<TreeADT<T>>();
+
+	//	Números de nodos olvidados, que se reutilizan
+	private final BitSet freeIds = new BitSet();
+
+	private final Map<String, Column> columns = new HashMap<String, Column>();
+
+	/**
+	 * Crea un almacén vacío.
+	 */
+	public TagStore() {
+	}
+
+	/**
+	 * Crea un almacén con las etiquetas que tienen ahora los nodos del
+	 * árbol (que no se modifican).
+	 */
+	public static <T> TagStore<T> of(TreeADT<T> tree) {
+
+		TagStore<T> store = new TagStore<T>();
+		Deque<TreeADT<T>> pending = new ArrayDeque<TreeADT<T>>();
+
+		pending.push(tree);
+
+		while(pending.isEmpty() == false) {
+
+			TreeADT<T> node = pending.pop();
+
+			if(node.isEmpty() == true) {
+
+				continue;
+			}
+
+			for (Map.Entry<String, Object> e : AbstractTreeADT.peekTags(node).entrySet()) {
+
+				store.setTag(node, e.getKey(), e.getValue());
+			}
+
+			for (int i = node.getMaxDegree() - 1; i >= 0; i--) {
+
+				pending.push(node.getSubtree(i));
+			}
+		}
+
+		return store;
+	}
+
+	private int idOf(TreeADT<T> node) {
+
+		Integer id = ids.get(node);
+
+		if(id == null) {
+
+			int free = freeIds.nextSetBit(0);
+
+			if(free >= 0) {
+
+				freeIds.clear(free);
+				nodes.set(free, node);
+				id = free;
+
+			}else {
+
+				id = nodes.size();
+				nodes.add(node);
+			}
+
+			ids.put(node, id);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Elimina todas las etiquetas del nodo y deja de guardar una referencia
+	 * a él; su número lo reutilizará otro nodo.
+	 *
+	 * @return si el nodo estaba en el almacén
+	 */
+	public boolean forget(TreeADT<T> node) {
+
+		Integer id = ids.remove(node);
+
+		if(id == null) {
+
+			return false;
+		}
+
+		for (Column c : columns.values()) {
+
+			c.remove(id);
+		}
+
+		nodes.set(id, null);
+		freeIds.set(id);
+		return true;
+	}
+
+	/**
+	 * Asigna una etiqueta a un nodo; un valor null la elimina.
+	 *
+	 * @throws IllegalArgumentException si el nodo es un árbol vacío
+	 * @throws ClassCastException si la columna tiene índice y el valor no
+	 * 			es comparable con los que ya tiene
+	 */
+	public void setTag(TreeADT<T> node, String key, Object value) {
+
+		if(value == null) {
+
+			removeTag(node, key);
+			return;
+		}
+
+		if(node.isEmpty() == true) {
+
+			throw new IllegalArgumentException("un árbol vacío no admite etiquetas");
+		}
+
+		Column c = columns.get(key);
+
+		if(c == null) {
+
+			c = new Column(value);
+			columns.put(key, c);
+		}
+
+		c.set(idOf(node), value);
+	}
+
+	/**
+	 * Valor de la etiqueta del nodo, null si no la tiene.
+	 */
+	public Object getTag(TreeADT<T> node, String key) {
+
+		Column c = columns.get(key);
+		Integer id = ids.get(node);
+
+		return c == null || id == null ? null : c.get(id);
+	}
+
+	/**
+	 * Elimina la etiqueta del nodo, si la tenía.
+	 */
+	public void removeTag(TreeADT<T> node, String key) {
+
+		Column c = columns.get(key);
+		Integer id = ids.get(node);
+
+		if(c != null && id != null) {
+
+			c.remove(id);
+		}
+	}
+
+	/**
+	 * Todas las etiquetas del nodo, en un mapa nuevo.
+	 */
+	public Map<String, Object> getTags(TreeADT<T> node) {
+
+		Map<String, Object> result = new TagMap();
+		Integer id = ids.get(node);
+
+		if(id != null) {
+
+			for (Map.Entry<String, Column> e : columns.entrySet()) {
+
+				Object v = e.getValue().get(id);
+
+				if(v != null) {
+
+					result.put(e.getKey(), v);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Claves de etiqueta con alguna columna.
+	 */
+	public Set<String> tagKeys() {
+		return columns.keySet();
+	}
+
+	/**
+	 * Número de nodos con la etiqueta.
+	 */
+	public int count(String key) {
+
+		Column c = columns.get(key);
+
+		return c == null ? 0 : c.count;
+	}
+
+	/**
+	 * Elimina todas las etiquetas cuya clave no esté entre las dadas, en
+	 * todos los nodos. Descarta columnas enteras: no depende del número
+	 * de nodos.
+	 */
+	public void filterTags(String ... keep) {
+
+		columns.keySet().retainAll(Arrays.asList(keep));
+	}
+
+	/**
+	 * Crea (si no lo tenía) un índice ordenado por valor para la clave.
+	 *
+	 * @throws ClassCastException si los valores no son comparables entre sí
+	 */
+	public void createIndex(String key) {
+
+		Column c = columns.get(key);
+
+		if(c == null) {
+
+			throw new IllegalArgumentException("no hay etiquetas con clave " + key);
+		}
+
+		if(c.index == null) {
+
+			c.buildIndex();
+		}
+	}
+
+	/**
+	 * Elimina el índice de la clave, si lo tenía.
+	 */
+	public void dropIndex(String key) {
+
+		Column c = columns.get(key);
+
+		if(c != null) {
+
+			c.index = null;
+		}
+	}
+
+	public boolean hasIndex(String key) {
+
+		Column c = columns.get(key);
+
+		return c != null && c.index != null;
+	}
+
+	/**
+	 * Entrega a action cada nodo cuya etiqueta key tiene un valor en
+	 * [lo, hi], ambos incluidos. Con índice, los nodos van en orden de
+	 * valor; sin él, en orden de etiquetado.
+	 *
+	 * Los límites se comparan con los valores de la columna con su
+	 * compareTo(); en las columnas numéricas se aceptan límites de
+	 * cualquier tipo numérico, que se convierten al de la columna. En las
+	 * columnas enteras un límite con decimales se redondea hacia dentro
+	 * del rango: hacia arriba lo y hacia abajo hi.
+	 *
+	 * @return número de nodos entregados
+	 */
+	public int forEachInRange(String key, Object lo, Object hi, Consumer<? super TreeADT<T>> action) {
+
+		Column c = columns.get(key);
+
+		if(c == null) {
+
+			return 0;
+		}
+
+		lo = asColumnType(c, lo, false);
+		hi = asColumnType(c, hi, true);
+
+		if(lo == null || hi == null) {
+
+			return 0;
+		}
+
+		int found = 0;
+
+		if(c.index != null) {
+
+			//	Desde la primera entrada con valor lo hasta la última con hi
+			IndexEntry from = new IndexEntry(lo, Integer.MIN_VALUE);
+			IndexEntry to = new IndexEntry(hi, Integer.MAX_VALUE);
+
+			if(from.value.compareTo(to.value) > 0) {
+
+				return 0;
+			}
+
+			for (IndexEntry e : c.index.subSet(from, true, to, true)) {
+
+				action.accept(nodes.get(e.id));
+				found++;
+			}
+
+		}else {
+
+			for (int id = c.present.nextSetBit(0); id >= 0; id = c.present.nextSetBit(id + 1)) {
+
+				Object v = c.get(id);
+
+				if(compare(v, lo) >= 0 && compare(v, hi) <= 0) {
+
+					action.accept(nodes.get(id));
+					found++;
+				}
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Nodos cuya etiqueta key tiene un valor en [lo, hi].
+	 *
+	 * @see #forEachInRange(String, Object, Object, Consumer)
+	 */
+	public List<TreeADT<T>> findInRange(String key, Object lo, Object hi) {
+
+		List<TreeADT<T>> result = new ArrayList<TreeADT<T>>();
+
+		forEachInRange(key, lo, hi, result::add);
+		return result;
+	}
+
+	/**
+	 * Nodos cuya etiqueta key vale value.
+	 */
+	public List<TreeADT<T>> find(String key, Object value) {
+		return findInRange(key, value, value);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static int compare(Object a, Object b) {
+		return ((Comparable<Object>) a).compareTo(b);
+	}
+
+	/**
+	 * El límite en el tipo de la columna, o null si ningún valor de la
+	 * columna puede quedar de ese lado.
+	 *
+	 * @param upper si es el límite superior del rango.
+	 */
+	private static Object asColumnType(Column c, Object bound, boolean upper) {
+
+		if(bound instanceof Number == false || c.type == OBJECT) {
+
+			return bound;
+		}
+
+		Number n = (Number) bound;
+
+		if(c.type == DOUBLE) {
+
+			return n.doubleValue();
+		}
+
+		long v;
+
+		if(n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte) {
+
+			v = n.longValue();
+
+		}else {
+
+			double d = n.doubleValue();
+
+			if(Double.isNaN(d) == true) {
+
+				return null;
+			}
+
+			d = upper ? Math.floor(d) : Math.ceil(d);
+
+			//	La conversión a long satura, así que se descartan antes los
+			//	límites que no dejan ningún long dentro
+			if(upper ? d < Long.MIN_VALUE : d >= 0x1p63) {
+
+				return null;
+			}
+
+			v = (long) d;
+		}
+
+		if(c.type == LONG) {
+
+			return v;
+		}
+
+		if(upper ? v < Integer.MIN_VALUE : v > Integer.MAX_VALUE) {
+
+			return null;
+		}
+
+		return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, v));
+	}
+}
@@ -0,0 +1,221 @@
+package ule.edi.tree;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TagStoreTests {
+
+	/*
+	* 50
+	* |  20
+	* |  |  10
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  30
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  80
+	* |  |  ∅
+	* |  |  ∅
+	*/
+	private BinarySearchTreeADTImpl<Integer> T5 = null;
+
+	private TagStore<Integer> store = null;
+
+	@Before
+	public void setupStore() {
+
+		T5 = new BinarySearchTreeADTImpl<Integer>();
+		T5.insert(50, 20, 80, 10, 30);
+
+		store = new TagStore<Integer>();
+	}
+
+	private List<Integer> contents(List<TreeADT<Integer>> nodes) {
+
+		List<Integer> result = new ArrayList<Integer>();
+
+		for (TreeADT<Integer> n : nodes) {
+
+			result.add(n.getContent());
+		}
+
+		return result;
+	}
+
+	@Test
+	public void testOfCopiesTreeTags() {
+
+		T5.setTag("width", 150);
+		T5.getSubtree(0).setTag("width", 120);
+		T5.getSubtree(0).setTag("name", "veinte");
+		T5.getSubtree(1).setTag("width", 300);
+
+		store = TagStore.of(T5);
+
+		Assert.assertEquals(3, store.count("width"));
+		Assert.assertEquals(1, store.count("name"));
+		Assert.assertEquals(120, store.getTag(T5.getSubtree(0), "width"));
+		Assert.assertEquals("veinte", store.getTag(T5.getSubtree(0), "name"));
+		Assert.assertNull(store.getTag(T5.getSubtree(0).getSubtree(0), "width"));
+		Assert.assertEquals(2, store.getTags(T5.getSubtree(0)).size());
+		Assert.assertTrue(store.getTags(T5.getSubtree(1).getSubtree(0)).isEmpty());
+	}
+
+	@Test
+	public void testRangeWithAndWithoutIndex() {
+
+		int w = 0;
+		List<TreeADT<Integer>> nodes = new ArrayList<TreeADT<Integer>>();
+
+		nodes.add(T5);
+		nodes.add(T5.getSubtree(0));
+		nodes.add(T5.getSubtree(1));
+		nodes.add(T5.getSubtree(0).getSubtree(0));
+		nodes.add(T5.getSubtree(0).getSubtree(1));
+
+		for (TreeADT<Integer> n : nodes) {
+
+			store.setTag(n, "width", 250 - 50 * w++);
+		}
+
+		//	50:250, 20:200, 80:150, 10:100, 30:50
+		Assert.assertEquals("[20, 80, 10]", contents(store.findInRange("width", 100, 200)).toString());
+
+		store.createIndex("width");
+		Assert.assertTrue(store.hasIndex("width"));
+
+		//	Con índice, por orden de valor
+		Assert.assertEquals("[10, 80, 20]", contents(store.findInRange("width", 100, 200)).toString());
+		Assert.assertEquals("[10, 80, 20]", contents(store.findInRange("width", 100L, 200.0)).toString());
+		Assert.assertEquals("[30]", contents(store.find("width", 50)).toString());
+		Assert.assertTrue(store.findInRange("width", 300, 100).isEmpty());
+
+		//	El índice sigue a los cambios
+		store.setTag(T5, "width", 175);
+		store.removeTag(T5.getSubtree(1), "width");
+		Assert.assertEquals("[10, 50, 20]", contents(store.findInRange("width", 100, 200)).toString());
+
+		store.setTag(T5.getSubtree(0), "width", null);
+		Assert.assertEquals("[10, 50]", contents(store.findInRange("width", 100, 200)).toString());
+		Assert.assertEquals(3, store.count("width"));
+	}
+
+	@Test
+	public void testColumnChangesType() {
+
+		store.setTag(T5, "k", 1);
+		store.setTag(T5.getSubtree(0), "k", 2L);
+		store.setTag(T5.getSubtree(1), "k", 3.5);
+
+		Assert.assertEquals(Integer.valueOf(1), store.getTag(T5, "k"));
+		Assert.assertEquals(Long.valueOf(2), store.getTag(T5.getSubtree(0), "k"));
+		Assert.assertEquals(Double.valueOf(3.5), store.getTag(T5.getSubtree(1), "k"));
+	}
+
+	@Test
+	public void testFilterTags() {
+
+		store.setTag(T5, "a", 1);
+		store.setTag(T5, "b", "dos");
+		store.setTag(T5.getSubtree(0), "c", 3.0);
+
+		store.filterTags("b", "x");
+
+		Assert.assertEquals("[b]", store.tagKeys().toString());
+		Assert.assertNull(store.getTag(T5, "a"));
+		Assert.assertEquals("dos", store.getTag(T5, "b"));
+		Assert.assertNull(store.getTag(T5.getSubtree(0), "c"));
+	}
+
+	@Test
+	public void testFractionalBoundsOnIntegerColumns() {
+
+		store.setTag(T5, "i", 1);
+		store.setTag(T5.getSubtree(0), "i", 2);
+		store.setTag(T5.getSubtree(1), "i", 3);
+		store.setTag(T5, "l", 1L);
+		store.setTag(T5.getSubtree(0), "l", 2L);
+		store.setTag(T5.getSubtree(1), "l", 3L);
+
+		for (int pass = 0; pass < 2; pass++) {
+
+			//	1.5 no incluye al 1 ni 2.5 al 3
+			Assert.assertEquals("[20]", contents(store.findInRange("i", 1.5, 2.5)).toString());
+			Assert.assertEquals("[20]", contents(store.findInRange("l", 1.5, 2.5)).toString());
+			Assert.assertTrue(store.findInRange("i", 2.2, 2.8).isEmpty());
+			Assert.assertTrue(store.find("i", 2.5).isEmpty());
+			Assert.assertTrue(store.findInRange("i", 1e10, 2e10).isEmpty());
+			Assert.assertTrue(store.findInRange("l", -1e30, -1e20).isEmpty());
+			Assert.assertEquals(3, store.findInRange("i", Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY).size());
+			Assert.assertTrue(store.findInRange("i", Double.NaN, 3).isEmpty());
+
+			store.createIndex("i");
+			store.createIndex("l");
+		}
+	}
+
+	@Test
+	public void testForgetReleasesNode() {
+
+		store.setTag(T5, "width", 1);
+		store.setTag(T5.getSubtree(0), "width", 2);
+		store.setTag(T5.getSubtree(0), "name", "veinte");
+		store.createIndex("width");
+
+		Assert.assertTrue(store.forget(T5.getSubtree(0)));
+		Assert.assertFalse(store.forget(T5.getSubtree(0)));
+
+		Assert.assertEquals(1, store.count("width"));
+		Assert.assertEquals(0, store.count("name"));
+		Assert.assertTrue(store.getTags(T5.getSubtree(0)).isEmpty());
+		Assert.assertEquals("[50]", contents(store.findInRange("width", 0, 10)).toString());
+
+		//	Otro nodo reutiliza su número sin heredar nada
+		store.setTag(T5.getSubtree(1), "name", "ochenta");
+		Assert.assertNull(store.getTag(T5.getSubtree(1), "width"));
+		Assert.assertEquals("[50]", contents(store.findInRange("width", 0, 10)).toString());
+		Assert.assertEquals("[80]", contents(store.find("name", "ochenta")).toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyNodeRejected() {
+		store.setTag(T5.getSubtree(1).getSubtree(0), "a", 1);
+	}
+
+	@Test
+	public void testLargeRangeQuery() {
+
+		BinarySearchTreeADTImpl<Integer> t = new BinarySearchTreeADTImpl<Integer>();
+
+		for (int i = 0; i < 2003; i++) {
+
+			t.insert((i * 7919) % 2003);
+		}
+
+		TagStore<Integer> s = new TagStore<Integer>();
+		List<BinarySearchTreeADTImpl<Integer>> nodes = t.inorderNodes();
+
+		for (BinarySearchTreeADTImpl<Integer> n : nodes) {
+
+			s.setTag(n, "width", n.getContent() * 2L);
+		}
+
+		s.createIndex("width");
+
+		List<TreeADT<Integer>> found = s.findInRange("width", 100, 200);
+
+		Assert.assertEquals(51, found.size());
+
+		for (TreeADT<Integer> n : found) {
+
+			Assert.assertTrue(n.getContent() >= 50 && n.getContent() <= 100);
+		}
+	}
+}
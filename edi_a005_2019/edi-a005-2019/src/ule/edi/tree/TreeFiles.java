@@ -0,0 +1,585 @@
+package ule.edi.tree;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+/**
+ * Guarda árboles de búsqueda en un formato binario compacto y los vuelve
+ * a cargar.
+ *
+ * El fichero tiene una cabecera (marca "EDIT", versión, indicadores y
+ * número de claves) seguida de las claves en orden ascendente, cada una
+ * codificada respecto a la anterior con un {@link KeyCodec}. Si se piden,
+ * detrás de cada clave van sus etiquetas (String, Integer, Long, Double o
+ * Boolean).
+ *
+ * Al escribir se recorre el árbol en inorden y se vuelca por bloques en el
+ * canal, sin construir el fichero en memoria. Al leer se proyecta el
+ * fichero en memoria (mmap) y, como las claves ya vienen ordenadas, el
+ * árbol se reconstruye equilibrado en tiempo lineal con bulkLoad(), en
+ * lugar de insertar clave a clave.
+ *
+ * Los ficheros se leen de una sola proyección, así que no pueden pasar
+ * de 2GB.
+ */
+public final class TreeFiles {
+
+	private static final int MAGIC = 0x45444954;	//	"EDIT"
+
+	private static final int VERSION = 1;
+
+	private static final int WITH_TAGS = 1;
+
+	//	Tipos de valor de una etiqueta
+	private static final int TAG_NULL = 0;
+	private static final int TAG_STRING = 1;
+	private static final int TAG_INTEGER = 2;
+	private static final int TAG_LONG = 3;
+	private static final int TAG_DOUBLE = 4;
+	private static final int TAG_BOOLEAN = 5;
+
+	private TreeFiles() {
+	}
+
+	/**
+	 * Escribe el árbol en el canal.
+	 *
+	 * @param tree árbol a guardar.
+	 * @param codec codificación de las claves.
+	 * @param withTags si se guardan también las etiquetas de cada nodo.
+	 * @param out canal donde escribir, normalmente un FileChannel.
+	 * @throws IllegalArgumentException si alguna etiqueta tiene un valor de
+	 * 			un tipo que no se sabe guardar
+	 */
+	public static <T extends Comparable<? super T>> void write(BinarySearchTreeADTImpl<T> tree, KeyCodec<T> codec,
+			boolean withTags, WritableByteChannel out) throws IOException {
+
+		Encoder enc = new Encoder(out);
+
+		writeHeader(enc, withTags ? WITH_TAGS : 0, tree.size());
+
+		Deque<BinarySearchTreeADTImpl<T>> pending = new ArrayDeque<BinarySearchTreeADTImpl<T>>();
+		BinarySearchTreeADTImpl<T> node = tree;
+		T previous = null;
+
+		while(node.isEmpty() == false || pending.isEmpty() == false) {
+
+			while(node.isEmpty() == false) {
+
+				pending.push(node);
+				node = node.getLeftBST();
+			}
+
+			node = pending.pop();
+			codec.encode(previous, node.getContent(), enc);
+			previous = node.getContent();
+
+			if(withTags == true) {
+
+				writeTags(enc, AbstractTreeADT.peekTags(node));
+			}
+
+			node = node.getRightBST();
+		}
+
+		enc.flush();
+	}
+
+	/**
+	 * Escribe un árbol de claves long (sin etiquetas), compatible con
+	 * {@link KeyCodec#LONG}.
+	 */
+	public static void write(AbstractLongBinarySearchTree tree, WritableByteChannel out) throws IOException {
+
+		Encoder enc = new Encoder(out);
+
+		writeHeader(enc, 0, tree.size());
+
+		PrimitiveIterator.OfLong i = tree.iteratorInorden();
+		boolean first = true;
+		long previous = 0;
+
+		while(i.hasNext()) {
+
+			long key = i.nextLong();
+
+			if(first == true) {
+
+				enc.putZigZag(key);
+				first = false;
+
+			}else {
+
+				enc.putVarLong(key - previous);
+			}
+
+			previous = key;
+		}
+
+		enc.flush();
+	}
+
+	/**
+	 * Carga un fichero en un árbol nuevo.
+	 *
+	 * @see #read(Path, KeyCodec, BinarySearchTreeADTImpl)
+	 */
+	public static <T extends Comparable<? super T>> BinarySearchTreeADTImpl<T> read(Path file, KeyCodec<T> codec) throws IOException {
+
+		BinarySearchTreeADTImpl<T> rx = new BinarySearchTreeADTImpl<T>();
+
+		read(file, codec, rx);
+		return rx;
+	}
+
+	/**
+	 * Carga un fichero en el árbol dado, que debe estar vacío: no se
+	 * mezcla con lo que ya tuviera. Vale cualquier subclase de
+	 * {@link BinarySearchTreeADTImpl}, por ejemplo un {@link AVLTreeADTImpl}.
+	 *
+	 * @param file fichero escrito con {@link #write(BinarySearchTreeADTImpl, KeyCodec, boolean, WritableByteChannel)}.
+	 * @param codec la misma codificación de claves con la que se escribió.
+	 * @param into árbol vacío donde cargarlo.
+	 * @throws IllegalArgumentException si into no está vacío
+	 * @throws IOException si no se puede leer o no tiene el formato esperado
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static <T extends Comparable<? super T>> void read(Path file, KeyCodec<T> codec, BinarySearchTreeADTImpl<T> into) throws IOException {
+
+		if(into.isEmpty() == false) {
+
+			throw new IllegalArgumentException("read() necesita un árbol vacío");
+		}
+
+		Decoder dec = new Decoder(map(file));
+		int flags = readHeader(dec);
+		int count = readCount(dec);
+
+		Comparable[] keys = new Comparable[count];
+		Map<String, Object>[] tags = (flags & WITH_TAGS) != 0 ? new Map[count] : null;
+		T previous = null;
+
+		for (int i = 0; i < count; i++) {
+
+			previous = codec.decode(previous, dec);
+
+			//	bulkLoad() reordenaría y las etiquetas irían a otro nodo
+			if(i > 0 && previous.compareTo((T) keys[i - 1]) <= 0) {
+
+				throw new IOException("claves desordenadas o repetidas");
+			}
+
+			keys[i] = previous;
+
+			if(tags != null) {
+
+				tags[i] = readTags(dec);
+			}
+		}
+
+		into.bulkLoad((T[]) keys);
+
+		if(tags != null) {
+
+			List<BinarySearchTreeADTImpl<T>> nodes = into.inorderNodes();
+
+			for (int i = 0; i < count; i++) {
+
+				for (Map.Entry<String, Object> e : tags[i].entrySet()) {
+
+					nodes.get(i).setTag(e.getKey(), e.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Carga un fichero de claves long en el árbol dado (en el heap o fuera
+	 * de él), que debe estar vacío, como en
+	 * {@link #read(Path, KeyCodec, BinarySearchTreeADTImpl)}.
+	 *
+	 * @throws IllegalArgumentException si into no está vacío
+	 * @throws IOException si no se puede leer o no tiene el formato esperado
+	 */
+	public static void read(Path file, AbstractLongBinarySearchTree into) throws IOException {
+
+		if(into.isEmpty() == false) {
+
+			throw new IllegalArgumentException("read() necesita un árbol vacío");
+		}
+
+		Decoder dec = new Decoder(map(file));
+		int flags = readHeader(dec);
+		int count = readCount(dec);
+		long[] keys = new long[count];
+
+		for (int i = 0; i < count; i++) {
+
+			keys[i] = i == 0 ? dec.getZigZag() : keys[i - 1] + dec.getVarLong();
+
+			if(i > 0 && keys[i] <= keys[i - 1]) {
+
+				throw new IOException("claves desordenadas o repetidas");
+			}
+
+			if((flags & WITH_TAGS) != 0) {
+
+				readTags(dec);
+			}
+		}
+
+		into.bulkLoad(keys);
+	}
+
+	private static MappedByteBuffer map(Path file) throws IOException {
+
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			//	La proyección sigue siendo válida al cerrar el canal
+			return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+		}
+	}
+
+	private static void writeHeader(Encoder enc, int flags, int count) throws IOException {
+
+		enc.putInt(MAGIC);
+		enc.putByte(VERSION);
+		enc.putByte(flags);
+		enc.putVarLong(count);
+	}
+
+	private static int readHeader(Decoder dec) throws IOException {
+
+		if(dec.getInt() != MAGIC) {
+
+			throw new IOException("no es un fichero de árbol");
+		}
+
+		int version = dec.getByte();
+
+		if(version != VERSION) {
+
+			throw new IOException("versión de fichero no soportada: " + version);
+		}
+
+		return dec.getByte();
+	}
+
+	/**
+	 * Lee un número de entradas, cada una de al menos un byte.
+	 */
+	private static int readCount(Decoder dec) throws IOException {
+
+		long n = dec.getVarLong();
+
+		if(n < 0 || n > dec.remaining()) {
+
+			throw new IOException("número de entradas no válido: " + n);
+		}
+
+		return (int) n;
+	}
+
+	private static void writeTags(Encoder enc, Map<String, Object> tags) throws IOException {
+
+		enc.putVarLong(tags.size());
+
+		for (Map.Entry<String, Object> e : tags.entrySet()) {
+
+			Object v = e.getValue();
+
+			enc.putString(e.getKey());
+
+			if(v == null) {
+
+				enc.putByte(TAG_NULL);
+
+			}else if(v instanceof String) {
+
+				enc.putByte(TAG_STRING);
+				enc.putString((String) v);
+
+			}else if(v instanceof Integer) {
+
+				enc.putByte(TAG_INTEGER);
+				enc.putZigZag((Integer) v);
+
+			}else if(v instanceof Long) {
+
+				enc.putByte(TAG_LONG);
+				enc.putZigZag((Long) v);
+
+			}else if(v instanceof Double) {
+
+				enc.putByte(TAG_DOUBLE);
+				enc.putLong(Double.doubleToRawLongBits((Double) v));
+
+			}else if(v instanceof Boolean) {
+
+				enc.putByte(TAG_BOOLEAN);
+				enc.putByte((Boolean) v ? 1 : 0);
+
+			}else {
+
+				throw new IllegalArgumentException("no se sabe guardar la etiqueta " + e.getKey() + " de tipo " + v.getClass().getName());
+			}
+		}
+	}
+
+	private static Map<String, Object> readTags(Decoder dec) throws IOException {
+
+		int n = readCount(dec);
+
+		if(n == 0) {
+
+			return Collections.emptyMap();
+		}
+
+		Map<String, Object> rx = new HashMap<String, Object>();
+
+		for (int i = 0; i < n; i++) {
+
+			String k = dec.getString();
+			int type = dec.getByte();
+			Object v;
+
+			switch (type) {
+			case TAG_NULL:
+				v = null;
+				break;
+			case TAG_STRING:
+				v = dec.getString();
+				break;
+			case TAG_INTEGER:
+				v = (int) dec.getZigZag();
+				break;
+			case TAG_LONG:
+				v = dec.getZigZag();
+				break;
+			case TAG_DOUBLE:
+				v = Double.longBitsToDouble(dec.getLong());
+				break;
+			case TAG_BOOLEAN:
+				v = dec.getByte() != 0;
+				break;
+			default:
+				throw new IOException("tipo de etiqueta desconocido: " + type);
+			}
+
+			rx.put(k, v);
+		}
+
+		return rx;
+	}
+
+	/**
+	 * Escritura por bloques en un canal.
+	 */
+	public static final class Encoder {
+
+		private final WritableByteChannel out;
+
+		private final ByteBuffer buf;
+
+		Encoder(WritableByteChannel out) {
+			this(out, 1 << 16);
+		}
+
+		/**
+		 * @param bufferSize bytes que se acumulan antes de escribir en el canal.
+		 */
+		Encoder(WritableByteChannel out, int bufferSize) {
+			this.out = out;
+			this.buf = ByteBuffer.allocate(bufferSize);
+		}
+
+		private void ensure(int bytes) throws IOException {
+
+			if(buf.remaining() < bytes) {
+
+				flush();
+			}
+		}
+
+		void flush() throws IOException {
+
+			buf.flip();
+
+			while(buf.hasRemaining()) {
+
+				out.write(buf);
+			}
+
+			buf.clear();
+		}
+
+		public void putByte(int b) throws IOException {
+
+			ensure(1);
+			buf.put((byte) b);
+		}
+
+		public void putInt(int v) throws IOException {
+
+			ensure(4);
+			buf.putInt(v);
+		}
+
+		public void putLong(long v) throws IOException {
+
+			ensure(8);
+			buf.putLong(v);
+		}
+
+		/**
+		 * Entero sin signo, 7 bits por byte (de 1 a 10 bytes).
+		 */
+		public void putVarLong(long v) throws IOException {
+
+			ensure(10);
+
+			while((v & ~0x7FL) != 0) {
+
+				buf.put((byte) ((v & 0x7F) | 0x80));
+				v >>>= 7;
+			}
+
+			buf.put((byte) v);
+		}
+
+		/**
+		 * Entero con signo: los de valor absoluto pequeño ocupan poco.
+		 */
+		public void putZigZag(long v) throws IOException {
+			putVarLong((v << 1) ^ (v >> 63));
+		}
+
+		/**
+		 * Longitud en varint y bytes UTF-8.
+		 */
+		public void putString(String s) throws IOException {
+
+			byte[] b = s.getBytes(StandardCharsets.UTF_8);
+			int off = 0;
+
+			putVarLong(b.length);
+
+			while(off < b.length) {
+
+				ensure(1);
+
+				int n = Math.min(buf.remaining(), b.length - off);
+
+				buf.put(b, off, n);
+				off += n;
+			}
+		}
+	}
+
+	/**
+	 * Lectura de un buffer (normalmente el fichero proyectado en memoria).
+	 */
+	public static final class Decoder {
+
+		private final ByteBuffer in;
+
+		Decoder(ByteBuffer in) {
+			this.in = in;
+		}
+
+		public int getByte() throws IOException {
+
+			try {
+				return in.get() & 0xFF;
+
+			}catch (BufferUnderflowException e) {
+
+				throw new IOException("fichero truncado", e);
+			}
+		}
+
+		public int getInt() throws IOException {
+
+			try {
+				return in.getInt();
+
+			}catch (BufferUnderflowException e) {
+
+				throw new IOException("fichero truncado", e);
+			}
+		}
+
+		public long getLong() throws IOException {
+
+			try {
+				return in.getLong();
+
+			}catch (BufferUnderflowException e) {
+
+				throw new IOException("fichero truncado", e);
+			}
+		}
+
+		public long getVarLong() throws IOException {
+
+			long v = 0;
+
+			for (int shift = 0; shift < 64; shift += 7) {
+
+				int b = getByte();
+
+				v |= (long) (b & 0x7F) << shift;
+
+				if((b & 0x80) == 0) {
+
+					return v;
+				}
+			}
+
+			throw new IOException("varint demasiado largo");
+		}
+
+		public long getZigZag() throws IOException {
+
+			long v = getVarLong();
+
+			return (v >>> 1) ^ -(v & 1);
+		}
+
+		/**
+		 * Bytes que quedan por leer.
+		 */
+		public int remaining() {
+			return in.remaining();
+		}
+
+		public String getString() throws IOException {
+
+			long n = getVarLong();
+
+			if(n < 0 || n > in.remaining()) {
+
+				throw new IOException("fichero truncado");
+			}
+
+			byte[] b = new byte[(int) n];
+
+			in.get(b);
+			return new String(b, StandardCharsets.UTF_8);
+		}
+	}
+}
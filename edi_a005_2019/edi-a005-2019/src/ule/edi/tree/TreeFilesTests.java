@@ -0,0 +1,208 @@
+package ule.edi.tree;
+
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TreeFilesTests {
+
+	private Path file = null;
+
+	@Before
+	public void setupFile() throws IOException {
+
+		file = Files.createTempFile("tree", ".bin");
+	}
+
+	@After
+	public void deleteFile() throws IOException {
+
+		Files.deleteIfExists(file);
+	}
+
+	private <T extends Comparable<? super T>> void write(BinarySearchTreeADTImpl<T> t, KeyCodec<T> codec, boolean withTags) throws IOException {
+
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			TreeFiles.write(t, codec, withTags, ch);
+		}
+	}
+
+	@Test
+	public void testRoundTripBalanced() throws IOException {
+
+		BinarySearchTreeADTImpl<Integer> t = new BinarySearchTreeADTImpl<Integer>();
+
+		t.insert(1, 2, 3, 4, 5, 6, 7, -100, Integer.MAX_VALUE, Integer.MIN_VALUE);
+		write(t, KeyCodec.INTEGER, false);
+
+		BinarySearchTreeADTImpl<Integer> rx = TreeFiles.read(file, KeyCodec.INTEGER);
+
+		Assert.assertEquals(10, rx.size());
+		Assert.assertEquals(4, rx.height());
+		Assert.assertEquals(Integer.valueOf(Integer.MIN_VALUE), rx.select(0));
+		Assert.assertEquals(Integer.valueOf(Integer.MAX_VALUE), rx.select(9));
+	}
+
+	@Test
+	public void testRoundTripTags() throws IOException {
+
+		BinarySearchTreeADTImpl<String> t = new BinarySearchTreeADTImpl<String>();
+
+		t.insert("pera", "manzana", "peral", "melón", "higo");
+		t.setTag("s", "raíz");
+		t.getSubtree(0).setTag("i", 7);
+		t.getSubtree(0).setTag("d", 1.5);
+		t.getSubtree(1).setTag("b", true);
+		t.getSubtree(1).setTag("l", -3L);
+		t.getSubtree(1).setTag("n", null);
+		write(t, KeyCodec.STRING, true);
+
+		AVLTreeADTImpl<String> rx = new AVLTreeADTImpl<String>();
+		TreeFiles.read(file, KeyCodec.STRING, rx);
+
+		Assert.assertEquals("{melón, {higo, ∅, {manzana [(d, 1.5), (i, 7)], ∅, ∅}}, {pera [(s, raíz)], ∅, {peral [(b, true), (l, -3), (n, null)], ∅, ∅}}}", rx.toString());
+	}
+
+	@Test
+	public void testLongTreesAreCompact() throws IOException {
+
+		LongBinarySearchTree t = new LongBinarySearchTree();
+
+		for (long i = 0; i < 100000; i++) {
+
+			t.insert(1000000000000L + 3 * i);
+		}
+
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+
+			TreeFiles.write(t, ch);
+		}
+		Assert.assertTrue(Files.size(file) < 100000 + 20);
+
+		OffHeapLongBinarySearchTree rx = new OffHeapLongBinarySearchTree();
+
+		try {
+			TreeFiles.read(file, rx);
+			Assert.assertArrayEquals(t.toArray(), rx.toArray());
+			Assert.assertEquals(17, rx.height());
+		} finally {
+			rx.close();
+		}
+
+		//	También se puede leer como árbol genérico
+		Assert.assertEquals(100000, TreeFiles.read(file, KeyCodec.LONG).size());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotATreeFile() throws IOException {
+
+		Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6 });
+		TreeFiles.read(file, KeyCodec.LONG);
+	}
+
+	@Test
+	public void testReadNeedsEmptyTree() throws IOException {
+
+		LongBinarySearchTree t = new LongBinarySearchTree();
+
+		t.insert(1);
+
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+
+			TreeFiles.write(t, ch);
+		}
+
+		try {
+			TreeFiles.read(file, t);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		BinarySearchTreeADTImpl<Long> rx = new BinarySearchTreeADTImpl<Long>();
+
+		rx.insert(2L);
+
+		try {
+			TreeFiles.read(file, KeyCodec.LONG, rx);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		Assert.assertArrayEquals(new long[] { 1 }, t.toArray());
+		Assert.assertEquals("{2, ∅, ∅}", rx.toString());
+	}
+
+	/**
+	 * Cambia el byte en la posición dada del fichero.
+	 */
+	private void patch(int position, int value) throws IOException {
+
+		byte[] b = Files.readAllBytes(file);
+
+		b[position] = (byte) value;
+		Files.write(file, b);
+	}
+
+	@Test
+	public void testCorruptFilesRejected() throws IOException {
+
+		//	Cabecera de 6 bytes y después el número de claves
+		BinarySearchTreeADTImpl<Long> l = new BinarySearchTreeADTImpl<Long>();
+
+		l.insert(5L, 6L);
+		write(l, KeyCodec.LONG, false);
+		Assert.assertEquals(9, Files.size(file));
+
+		//	Más claves que bytes
+		patch(6, 0x7F);
+		assertCorrupt(KeyCodec.LONG);
+
+		//	La segunda clave repite la primera (diferencia 0)
+		patch(6, 2);
+		patch(8, 0);
+		assertCorrupt(KeyCodec.LONG);
+
+		try {
+			TreeFiles.read(file, new LongBinarySearchTree());
+			Assert.fail();
+		} catch (IOException e) {
+		}
+
+		//	Prefijo común mayor que la clave anterior
+		BinarySearchTreeADTImpl<String> s = new BinarySearchTreeADTImpl<String>();
+
+		s.insert("a", "b");
+		write(s, KeyCodec.STRING, false);
+		patch(10, 5);
+		assertCorrupt(KeyCodec.STRING);
+	}
+
+	private <T extends Comparable<? super T>> void assertCorrupt(KeyCodec<T> codec) {
+
+		try {
+			TreeFiles.read(file, codec);
+			Assert.fail();
+		} catch (IOException e) {
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedTag() throws IOException {
+
+		BinarySearchTreeADTImpl<Integer> t = new BinarySearchTreeADTImpl<Integer>();
+
+		t.insert(1);
+		t.setTag("x", new Object());
+		write(t, KeyCodec.INTEGER, true);
+	}
+}
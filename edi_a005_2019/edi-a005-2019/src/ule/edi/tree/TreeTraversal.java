@@ -0,0 +1,260 @@
+package ule.edi.tree;
+
+import java.util.Arrays;
+
+/**
+ * Recorridos de un árbol cualquiera con un visitante.
+ *
+ * Los recorridos en profundidad usan una pila explícita (arrays que sólo
+ * crecen con la profundidad), no recursividad, así que sirven también
+ * para árboles degenerados muy profundos; el recorrido por niveles es el
+ * de {@link LevelOrder}. El visitante recibe cada nodo no vacío con su
+ * profundidad y el camino desde la raíz, sin crear objetos por nodo, y
+ * decide con su resultado si se sigue, si se poda el sub-árbol o si se
+ * termina.
+ *
+ * Por ejemplo, para buscar un elemento recorriendo en preorden:
+ *
+ * 		TreeADT<T> found = TreeTraversal.traverse(tree, Order.PREORDER,
+ * 				(node, depth, path) -> element.equals(node.getContent()) ? Action.STOP : Action.CONTINUE);
+ *
+ * Durante el recorrido no se debe cambiar la estructura del árbol.
+ */
+public final class TreeTraversal {
+
+	/**
+	 * Orden de visita.
+	 *
+	 * En inorden se visita el primer sub-árbol, el nodo y después el resto
+	 * de sub-árboles; en inorden inverso, el último sub-árbol, el nodo y el
+	 * resto en orden inverso. En un árbol binario son (izquierda, raíz,
+	 * derecha) y (derecha, raíz, izquierda).
+	 */
+	public enum Order {
+		PREORDER, INORDER, POSTORDER, REVERSE_INORDER, LEVEL_ORDER
+	}
+
+	/**
+	 * Qué hacer tras visitar un nodo.
+	 */
+	public enum Action {
+
+		/**
+		 * Seguir con el recorrido.
+		 */
+		CONTINUE,
+
+		/**
+		 * No visitar los sub-árboles del nodo que queden por recorrer: en
+		 * preorden y por niveles, todos; en inorden, los que van detrás del
+		 * nodo; en postorden ya están recorridos y es como CONTINUE.
+		 */
+		PRUNE,
+
+		/**
+		 * Terminar el recorrido.
+		 */
+		STOP
+	}
+
+	public interface Visitor<T> {
+
+		/**
+		 * @param node nodo no vacío.
+		 * @param depth profundidad del nodo (la raíz está a profundidad 0).
+		 * @param path camino desde la raíz; sólo es válido durante la visita.
+		 */
+		Action visit(TreeADT<T> node, int depth, Path path);
+	}
+
+	/**
+	 * Camino desde la raíz hasta el nodo visitado. Es una vista del estado
+	 * del recorrido: se reutiliza en todas las visitas.
+	 *
+	 * En el recorrido por niveles sólo se conoce su longitud.
+	 */
+	public static final class Path {
+
+		private TreeADT<?>[] nodes;
+		private int[] steps;
+		private int length;
+
+		/**
+		 * Número de pasos desde la raíz (la profundidad del nodo).
+		 */
+		public int length() {
+			return length;
+		}
+
+		/**
+		 * Sub-árbol que se toma en el paso i-ésimo: en un árbol binario,
+		 * 0 a la izquierda y 1 a la derecha.
+		 */
+		public int step(int i) {
+
+			check(i, length);
+			return steps[i + 1];
+		}
+
+		/**
+		 * Nodo a profundidad i en el camino: la raíz es el 0 y el nodo
+		 * visitado, el length().
+		 */
+		@SuppressWarnings("unchecked")
+		public <T> TreeADT<T> node(int i) {
+
+			check(i, length + 1);
+			return (TreeADT<T>) nodes[i];
+		}
+
+		private void check(int i, int limit) {
+
+			if(nodes == null) {
+
+				throw new UnsupportedOperationException("en el recorrido por niveles sólo se conoce la longitud del camino");
+			}
+
+			if(i < 0 || i >= limit) {
+
+				throw new IndexOutOfBoundsException("paso " + i);
+			}
+		}
+
+		/**
+		 * El camino con el formato de
+		 * {@link BinarySearchTreeADTImpl#getSubtreeWithPath(String)}.
+		 */
+		@Override
+		public String toString() {
+
+			StringBuilder sb = new StringBuilder(length);
+
+			for (int i = 0; i < length; i++) {
+
+				sb.append(step(i));
+			}
+
+			return sb.toString();
+		}
+	}
+
+	//	Profundidad para la que se reserva la pila al empezar; crece si hace falta
+	private static final int INITIAL_DEPTH = 32;
+
+	private TreeTraversal() {
+	}
+
+	/**
+	 * Recorre el árbol en el orden dado, visitando sus nodos no vacíos.
+	 *
+	 * @return el nodo en el que el visitante pidió terminar, o null si se
+	 * 			recorrió entero
+	 */
+	public static <T> TreeADT<T> traverse(TreeADT<T> tree, Order order, Visitor<T> visitor) {
+
+		if(tree.isEmpty() == true) {
+
+			return null;
+		}
+
+		if(order == Order.LEVEL_ORDER) {
+
+			return levelOrder(tree, visitor);
+		}
+
+		return depthFirst(tree, order, visitor);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <T> TreeADT<T> depthFirst(TreeADT<T> tree, Order order, Visitor<T> visitor) {
+
+		//	Pila: nodo, siguiente hijo a recorrer y si ya se visitó
+		TreeADT<T>[] nodes = new TreeADT[INITIAL_DEPTH];
+		int[] steps = new int[nodes.length];
+		int[] next = new int[nodes.length];
+		boolean[] visited = new boolean[nodes.length];
+		int top = 0;
+
+		boolean reverse = order == Order.REVERSE_INORDER;
+		Path path = new Path();
+
+		nodes[top] = tree;
+		next[top] = 0;
+		visited[top] = false;
+		top++;
+
+		while(top > 0) {
+
+			int d = top - 1;
+			TreeADT<T> node = nodes[d];
+			int degree = node.getMaxDegree();
+			int i = next[d];
+
+			int visitAt = order == Order.PREORDER ? 0 : order == Order.POSTORDER ? degree : Math.min(1, degree);
+
+			if(i == visitAt && visited[d] == false) {
+
+				visited[d] = true;
+
+				path.nodes = nodes;
+				path.steps = steps;
+				path.length = d;
+
+				Action a = visitor.visit(node, d, path);
+
+				if(a == Action.STOP) {
+
+					return node;
+
+				}else if(a == Action.PRUNE) {
+
+					next[d] = degree;
+				}
+
+			}else if(i < degree) {
+
+				next[d]++;
+
+				int k = reverse ? degree - 1 - i : i;
+				TreeADT<T> child = node.getSubtree(k);
+
+				if(child.isEmpty() == false) {
+
+					if(top == nodes.length) {
+
+						int capacity = nodes.length * 2;
+
+						nodes = Arrays.copyOf(nodes, capacity);
+						steps = Arrays.copyOf(steps, capacity);
+						next = Arrays.copyOf(next, capacity);
+						visited = Arrays.copyOf(visited, capacity);
+					}
+
+					nodes[top] = child;
+					steps[top] = k;
+					next[top] = 0;
+					visited[top] = false;
+					top++;
+				}
+
+			}else {
+
+				nodes[d] = null;
+				top--;
+			}
+		}
+
+		return null;
+	}
+
+	private static <T> TreeADT<T> levelOrder(TreeADT<T> tree, Visitor<T> visitor) {
+
+		Path path = new Path();
+
+		return new LevelOrder<T>(tree).walk((node, level, position) -> {
+
+			path.length = level;
+			return visitor.visit(node, level, path);
+		});
+	}
+}
@@ -0,0 +1,145 @@
+package ule.edi.tree;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import ule.edi.tree.TreeTraversal.Action;
+import ule.edi.tree.TreeTraversal.Order;
+
+
+public class TreeTraversalTests {
+
+	/*
+	* 50
+	* |  30
+	* |  |  10
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  40
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  80
+	* |  |  60
+	* |  |  |  ∅
+	* |  |  |  ∅
+	* |  |  ∅
+	*/
+	private BinarySearchTreeADTImpl<Integer> T6 = null;
+
+	@Before
+	public void setupTrees() {
+
+		T6 = new BinarySearchTreeADTImpl<Integer>();
+		T6.insert(50, 30, 10, 40, 80, 60);
+	}
+
+	private String visit(Order order) {
+
+		List<String> visits = new ArrayList<String>();
+
+		TreeTraversal.traverse(T6, order, (node, depth, path) -> {
+			visits.add(node.getContent() + "@" + depth);
+			return Action.CONTINUE;
+		});
+
+		return visits.toString();
+	}
+
+	@Test
+	public void testOrders() {
+
+		Assert.assertEquals("[50@0, 30@1, 10@2, 40@2, 80@1, 60@2]", visit(Order.PREORDER));
+		Assert.assertEquals("[10@2, 30@1, 40@2, 50@0, 60@2, 80@1]", visit(Order.INORDER));
+		Assert.assertEquals("[10@2, 40@2, 30@1, 60@2, 80@1, 50@0]", visit(Order.POSTORDER));
+		Assert.assertEquals("[80@1, 60@2, 50@0, 40@2, 30@1, 10@2]", visit(Order.REVERSE_INORDER));
+		Assert.assertEquals("[50@0, 30@1, 80@1, 10@2, 40@2, 60@2]", visit(Order.LEVEL_ORDER));
+	}
+
+	@Test
+	public void testEmptyTree() {
+
+		Assert.assertNull(TreeTraversal.traverse(new BinarySearchTreeADTImpl<Integer>(), Order.PREORDER, (node, depth, path) -> {
+			Assert.fail();
+			return Action.CONTINUE;
+		}));
+	}
+
+	@Test
+	public void testPruneAndStop() {
+
+		List<Integer> visits = new ArrayList<Integer>();
+
+		TreeADT<Integer> stop = TreeTraversal.traverse(T6, Order.PREORDER, (node, depth, path) -> {
+			visits.add(node.getContent());
+			if (node.getContent() == 30) {
+				return Action.PRUNE;
+			}
+			return node.getContent() == 80 ? Action.STOP : Action.CONTINUE;
+		});
+
+		Assert.assertEquals("[50, 30, 80]", visits.toString());
+		Assert.assertEquals(Integer.valueOf(80), stop.getContent());
+
+		visits.clear();
+		TreeTraversal.traverse(T6, Order.LEVEL_ORDER, (node, depth, path) -> {
+			visits.add(node.getContent());
+			return node.getContent() == 30 ? Action.PRUNE : Action.CONTINUE;
+		});
+		Assert.assertEquals("[50, 30, 80, 60]", visits.toString());
+
+		//	En inorden se poda lo que va detrás del nodo
+		visits.clear();
+		TreeTraversal.traverse(T6, Order.INORDER, (node, depth, path) -> {
+			visits.add(node.getContent());
+			return node.getContent() == 30 ? Action.PRUNE : Action.CONTINUE;
+		});
+		Assert.assertEquals("[10, 30, 50, 60, 80]", visits.toString());
+	}
+
+	@Test
+	public void testPath() {
+
+		List<String> paths = new ArrayList<String>();
+
+		TreeTraversal.traverse(T6, Order.PREORDER, (node, depth, path) -> {
+			Assert.assertEquals(depth, path.length());
+			Assert.assertSame(node, path.node(depth));
+			Assert.assertSame(T6, path.node(0));
+			Assert.assertSame(node, T6.getSubtreeWithPath(path.toString()));
+			paths.add(path.toString());
+			return Action.CONTINUE;
+		});
+
+		Assert.assertEquals("[, 0, 00, 01, 1, 10]", paths.toString());
+	}
+
+	@Test
+	public void testDeepTree() {
+
+		BinarySearchTreeADTImpl<Integer> t = new BinarySearchTreeADTImpl<Integer>();
+
+		for (int i = 0; i < 20000; i++) {
+			t.insert(i);
+		}
+
+		List<Integer> checked = new ArrayList<Integer>();
+
+		Assert.assertTrue(t.findInBinaryTree(19999, checked));
+		Assert.assertEquals(20000, checked.size());
+		Assert.assertFalse(t.findInBinaryTree(-1, new ArrayList<Integer>()));
+
+		int[] last = { -1 };
+
+		TreeTraversal.traverse(t, Order.POSTORDER, (node, depth, path) -> {
+			Assert.assertEquals(last[0] == -1 ? 19999 : last[0] - 1, node.getContent().intValue());
+			last[0] = node.getContent();
+			return Action.CONTINUE;
+		});
+		Assert.assertEquals(0, last[0]);
+	}
+}